@@ -0,0 +1,149 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.config.ProductCacheProperties;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import com.nimbleways.springboilerplate.services.ProductProcessorRegistry;
+import com.nimbleways.springboilerplate.services.ProductReferenceCache;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import com.nimbleways.springboilerplate.services.implementations.ExpirableProductServiceImpl;
+import com.nimbleways.springboilerplate.services.implementations.NormalProductServiceImpl;
+import com.nimbleways.springboilerplate.services.implementations.SeasonalProductServiceImpl;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory stand-ins for the database side of order processing, so that benchmarks measure the processing code only
+ */
+final class BenchmarkFixtures {
+
+    /**
+     * Large enough for the available branch to be taken during a whole iteration
+     */
+    static final int LARGE_STOCK = Integer.MAX_VALUE / 2;
+
+    static final NotificationPublisher NO_NOTIFICATIONS = notification -> { };
+
+    private BenchmarkFixtures() {
+    }
+
+    static ProductProcessorRegistry registry() {
+        return new ProductProcessorRegistry(List.of(
+                new NormalProductServiceImpl(),
+                new SeasonalProductServiceImpl(),
+                new ExpirableProductServiceImpl()
+        ), new SimpleMeterRegistry());
+    }
+
+    static Order order(long id, int size, ProductMix mix) {
+        Set<Product> items = new HashSet<>();
+        for (int index = 0; index < size; index++) {
+            items.add(product(id * 10_000 + index, mix.typeAt(index), true));
+        }
+        return new Order(id, items);
+    }
+
+    /**
+     * @param available whether the product takes the branch that sells a unit
+     */
+    static Product product(long id, ProductType type, boolean available) {
+        LocalDate today = LocalDate.now();
+        Product product = new Product();
+        product.setId(id);
+        product.setName("product " + id);
+        product.setType(type);
+        product.setLeadTime(available ? 5 : 60);
+        product.setAvailable(available ? LARGE_STOCK : 0);
+        product.setSeasonStartDate(today.minusDays(30));
+        product.setSeasonEndDate(today.plusDays(30));
+        product.setExpiryDate(available ? today.plusDays(30) : today.minusDays(1));
+        return product;
+    }
+
+    static void restock(Collection<Product> products) {
+        products.forEach(product -> product.setAvailable(LARGE_STOCK));
+    }
+
+    /**
+     * Decrements and clears the loaded products, as a single-threaded database would
+     */
+    static StockConcurrencyStrategy inMemoryStock() {
+        return new StockConcurrencyStrategy() {
+            @Override
+            public boolean decrement(Product product) {
+                if (product.getAvailable() <= 0) {
+                    return false;
+                }
+                product.setAvailable(product.getAvailable() - 1);
+                return true;
+            }
+
+            @Override
+            public void clear(Product product) {
+                product.setAvailable(0);
+            }
+
+            @Override
+            public List<Long> clearAll(List<? extends ProductStockLevel> stockLevels) {
+                throw new UnsupportedOperationException("not used by the benchmarks");
+            }
+
+            @Override
+            public void restock(Map<Long, Integer> unitsByProductId) {
+                throw new UnsupportedOperationException("not used by the benchmarks");
+            }
+        };
+    }
+
+    /**
+     * Orders are read with their items from {@link #orderRepository(Collection)}, the cache is never queried
+     */
+    static ProductReferenceCache disabledProductCache() {
+        ProductCacheProperties properties = new ProductCacheProperties();
+        properties.setEnabled(false);
+        return new ProductReferenceCache(null, null, null, properties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Answers the order lookups of the processing path from a map, other repository methods are not supported
+     */
+    static OrderRepository orderRepository(Collection<Order> orders) {
+        Map<Long, Order> ordersById = new ConcurrentHashMap<>();
+        orders.forEach(order -> ordersById.put(order.getId(), order));
+        return (OrderRepository) Proxy.newProxyInstance(OrderRepository.class.getClassLoader(),
+                new Class<?>[]{OrderRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById":
+                        case "findWithItemsById":
+                            return Optional.ofNullable(ordersById.get((Long) args[0]));
+                        case "findAllWithItemsByIdIn":
+                            return ((Collection<?>) args[0]).stream()
+                                    .map(ordersById::get)
+                                    .filter(order -> order != null)
+                                    .collect(Collectors.toList());
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryOrderRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,85 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.config.OrderProcessingProperties;
+import com.nimbleways.springboilerplate.config.OrderTraceProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.mappers.OrderMapper;
+import com.nimbleways.springboilerplate.services.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.StockMetrics;
+import com.nimbleways.springboilerplate.services.trace.OrderTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderProcessingService#processOrder(Long)} from the order lookup to the DTO, over in-memory repositories
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderProcessingBenchmark {
+
+    private static final long ORDER_ID = 1L;
+
+    @Param({"1", "10", "100", "1000"})
+    private int orderSize;
+
+    @Param({"NORMAL", "SEASONAL", "EXPIRABLE", "MIXED"})
+    private ProductMix mix;
+
+    /**
+     * The default threshold, and one that keeps the decisions sequential whatever the order size
+     */
+    @Param({"1000", "2147483647"})
+    private int parallelDecisionThreshold;
+
+    private Order order;
+    private OrderProcessingService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        order = BenchmarkFixtures.order(ORDER_ID, orderSize, mix);
+        OrderProcessingProperties properties = new OrderProcessingProperties();
+        properties.setParallelDecisionThreshold(parallelDecisionThreshold);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new OrderProcessingService(
+                BenchmarkFixtures.orderRepository(List.of(order)),
+                BenchmarkFixtures.registry(),
+                BenchmarkFixtures.inMemoryStock(),
+                new OrderMapper(),
+                BenchmarkFixtures.disabledProductCache(),
+                BenchmarkFixtures.NO_NOTIFICATIONS,
+                new StockMetrics(meterRegistry),
+                properties,
+                new OrderTracer(new OrderTraceProperties(), meterRegistry),
+                meterRegistry
+        );
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        BenchmarkFixtures.restock(order.getItems());
+    }
+
+    @Benchmark
+    public OrderDto processOrder() {
+        return service.processOrder(ORDER_ID);
+    }
+}
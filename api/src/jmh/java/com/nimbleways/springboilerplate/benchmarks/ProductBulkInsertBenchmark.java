@@ -0,0 +1,99 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products saved {@value #ROWS} at a time in one transaction, through the repository, on the H2 database of the tests.
+ * A batch size of 1 stands for the former identity ids: one sequence call and one statement per row, while larger
+ * sizes reserve the ids and group the inserts. Scores are rows per second; the gain grows with the database latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductBulkInsertBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "ids.allocation-size=" + batchSize,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "products.cache.enabled=false",
+                        "products.lifecycle.sweep-on-startup=false",
+                        "products.lifecycle.backfill-on-startup=false")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteProducts() {
+        jdbcTemplate.update("delete from product_stock");
+        jdbcTemplate.update("delete from products");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertProducts() {
+        transactionTemplate.executeWithoutResult(status -> productRepository.saveAll(newProducts()));
+    }
+
+    private static List<Product> newProducts() {
+        List<Product> products = new ArrayList<>(ROWS);
+        for (int index = 0; index < ROWS; index++) {
+            Product product = new Product();
+            product.setType(ProductType.NORMAL);
+            product.setName("product " + index);
+            product.setLeadTime(5);
+            product.setAvailable(50);
+            products.add(product);
+        }
+        return products;
+    }
+}
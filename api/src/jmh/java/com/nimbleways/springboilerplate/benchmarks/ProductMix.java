@@ -0,0 +1,23 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.entities.ProductType;
+
+/**
+ * Product types found in the benchmarked orders
+ */
+public enum ProductMix {
+    NORMAL(ProductType.NORMAL),
+    SEASONAL(ProductType.SEASONAL),
+    EXPIRABLE(ProductType.EXPIRABLE),
+    MIXED(ProductType.NORMAL, ProductType.SEASONAL, ProductType.EXPIRABLE);
+
+    private final ProductType[] types;
+
+    ProductMix(ProductType... types) {
+        this.types = types;
+    }
+
+    ProductType typeAt(int index) {
+        return types[index % types.length];
+    }
+}
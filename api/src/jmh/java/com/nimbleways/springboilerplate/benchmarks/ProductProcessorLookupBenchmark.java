@@ -0,0 +1,55 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.services.ProductProcessorRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductProcessorRegistry#processorFor(ProductType)} over the product types of an order
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductProcessorLookupBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int orderSize;
+
+    @Param({"NORMAL", "MIXED"})
+    private ProductMix mix;
+
+    private ProductType[] types;
+    private ProductProcessorRegistry registry;
+
+    @Setup
+    public void setUp() {
+        registry = BenchmarkFixtures.registry();
+        types = new ProductType[orderSize];
+        for (int index = 0; index < orderSize; index++) {
+            types[index] = mix.typeAt(index);
+        }
+    }
+
+    @Benchmark
+    public void processorFor(Blackhole blackhole) {
+        for (ProductType type : types) {
+            blackhole.consume(registry.processorFor(type));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The decision of each {@link ProductService} on the branch selling a unit and on the out-of-stock, out-of-season or
+ * expired branch. Deciding has no side effect, so the product is never restocked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"NORMAL", "SEASONAL", "EXPIRABLE"})
+    private ProductType type;
+
+    @Param({"true", "false"})
+    private boolean available;
+
+    private final LocalDate today = LocalDate.now();
+    private Product product;
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkFixtures.registry().processorFor(type);
+        product = BenchmarkFixtures.product(1L, type, available);
+    }
+
+    @Benchmark
+    public ProductDecision decide() {
+        return service.decide(product, today);
+    }
+}
@@ -0,0 +1,245 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.entities.SellableWindow;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeds the load test database with products and orders.
+ * <p>
+ * Runs with the {@code loadtest} profile, on the schema of the Liquibase changelog, and inserts rows with JDBC batches.
+ * Settings are passed as {@code --loadtest.<name>=<value>} arguments, see {@link Settings}. Generation is deterministic
+ * for a given seed.
+ */
+@Slf4j
+public final class DatasetGenerator {
+
+    private static final String INSERT_PRODUCT = "insert into products "
+            + "(lead_time, type, name, expiry_date, season_start_date, season_end_date, sellable_from, sellable_until) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PRODUCT_STOCK = "insert into product_stock (product_id, available, version) values (?, ?, 0)";
+    private static final String INSERT_ORDER = "insert into orders default values";
+    private static final String INSERT_ORDER_ITEM = "insert into order_items (order_id, product_id) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Settings settings;
+    private final Random random;
+    private final LocalDate today = LocalDate.now();
+
+    DatasetGenerator(JdbcTemplate jdbcTemplate, Settings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.random = new Random(settings.getSeed());
+    }
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("loadtest")
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            Settings settings = Binder.get(context.getEnvironment())
+                    .bindOrCreate("loadtest", Settings.class);
+            new DatasetGenerator(context.getBean(JdbcTemplate.class), settings).generate();
+        }
+    }
+
+    void generate() {
+        long start = System.nanoTime();
+        long[] productIds = insertProducts();
+        long[] orderIds = insertOrders();
+        long items = insertOrderItems(orderIds, productIds);
+        log.info("generated {} products, {} orders ({} items) in {} s, order ids {}-{}",
+                productIds.length, orderIds.length, items, (System.nanoTime() - start) / 1_000_000_000L,
+                orderIds.length == 0 ? "" : orderIds[0], orderIds.length == 0 ? "" : orderIds[orderIds.length - 1]);
+    }
+
+    private long[] insertProducts() {
+        long firstId = maxId("products") + 1;
+        Map<ProductType, Integer> counts = new EnumMap<>(ProductType.class);
+        LongArray stocks = new LongArray();
+        List<Object[]> batch = new ArrayList<>(settings.getBatchSize());
+        for (long index = 0; index < settings.getProducts(); index++) {
+            ProductType type = randomType();
+            counts.merge(type, 1, Integer::sum);
+            batch.add(randomProduct(index, type));
+            stocks.add(randomStock());
+            if (batch.size() == settings.getBatchSize()) {
+                jdbcTemplate.batchUpdate(INSERT_PRODUCT, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT, batch);
+        }
+        long[] productIds = idsFrom("products", firstId);
+        insertProductStock(productIds, stocks.toArray());
+        log.info("inserted products: {}", counts);
+        return productIds;
+    }
+
+    private void insertProductStock(long[] productIds, long[] stocks) {
+        List<Object[]> batch = new ArrayList<>(settings.getBatchSize());
+        for (int index = 0; index < productIds.length; index++) {
+            batch.add(new Object[]{productIds[index], stocks[index]});
+            if (batch.size() == settings.getBatchSize()) {
+                jdbcTemplate.batchUpdate(INSERT_PRODUCT_STOCK, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT_STOCK, batch);
+        }
+    }
+
+    private Object[] randomProduct(long index, ProductType type) {
+        LocalDate expiryDate = null;
+        LocalDate seasonStart = null;
+        LocalDate seasonEnd = null;
+        if (type == ProductType.EXPIRABLE) {
+            // about one in six is already expired
+            expiryDate = today.plusDays(random.nextInt(210) - 30);
+        } else if (type == ProductType.SEASONAL) {
+            seasonStart = today.plusDays(random.nextInt(180) - 120);
+            seasonEnd = seasonStart.plusDays(30 + random.nextInt(90));
+        }
+        SellableWindow window = SellableWindow.of(type, expiryDate, seasonStart, seasonEnd);
+        return new Object[]{
+                1 + random.nextInt(30),
+                type.name(),
+                type.name().toLowerCase() + " product " + index,
+                toSqlDate(expiryDate),
+                toSqlDate(seasonStart),
+                toSqlDate(seasonEnd),
+                toSqlDate(window.from()),
+                toSqlDate(window.until())
+        };
+    }
+
+    /**
+     * A tenth of the products is out of stock, the others mostly hold a few dozen units with a long tail
+     */
+    private int randomStock() {
+        if (random.nextInt(10) == 0) {
+            return 0;
+        }
+        double exponential = -Math.log(1 - random.nextDouble()) * settings.getMeanStock();
+        return 1 + (int) Math.min(exponential, settings.getMeanStock() * 20L);
+    }
+
+    private ProductType randomType() {
+        int total = settings.getNormalWeight() + settings.getSeasonalWeight() + settings.getExpirableWeight();
+        int draw = random.nextInt(total);
+        if (draw < settings.getNormalWeight()) {
+            return ProductType.NORMAL;
+        }
+        return draw < settings.getNormalWeight() + settings.getSeasonalWeight() ? ProductType.SEASONAL : ProductType.EXPIRABLE;
+    }
+
+    private long[] insertOrders() {
+        long firstId = maxId("orders") + 1;
+        for (long inserted = 0; inserted < settings.getOrders(); inserted += settings.getBatchSize()) {
+            int size = (int) Math.min(settings.getBatchSize(), settings.getOrders() - inserted);
+            jdbcTemplate.batchUpdate(INSERT_ORDER, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) {
+                    // only generated columns
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        return idsFrom("orders", firstId);
+    }
+
+    private long insertOrderItems(long[] orderIds, long[] productIds) {
+        if (productIds.length == 0) {
+            return 0;
+        }
+        long items = 0;
+        List<Object[]> batch = new ArrayList<>(settings.getBatchSize());
+        for (long orderId : orderIds) {
+            for (long productId : randomItems(productIds)) {
+                batch.add(new Object[]{orderId, productId});
+                items++;
+                if (batch.size() == settings.getBatchSize()) {
+                    jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM, batch);
+        }
+        return items;
+    }
+
+    /**
+     * Order sizes are skewed towards small orders, between the configured bounds
+     */
+    private Set<Long> randomItems(long[] productIds) {
+        int span = settings.getMaxOrderSize() - settings.getMinOrderSize() + 1;
+        double skew = random.nextDouble();
+        int size = Math.min(productIds.length, settings.getMinOrderSize() + (int) (span * skew * skew));
+        Set<Long> items = new HashSet<>();
+        while (items.size() < size) {
+            items.add(productIds[random.nextInt(productIds.length)]);
+        }
+        return items;
+    }
+
+    private long maxId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    private long[] idsFrom(String table, long firstId) {
+        LongArray ids = new LongArray();
+        jdbcTemplate.query("select id from " + table + " where id >= ? order by id",
+                rs -> {
+                    ids.add(rs.getLong(1));
+                }, firstId);
+        return ids.toArray();
+    }
+
+    private static Date toSqlDate(LocalDate date) {
+        return date == null ? null : Date.valueOf(date);
+    }
+
+    @Getter
+    @Setter
+    public static class Settings {
+        private long products = 1_000_000;
+        private long orders = 100_000;
+        private int minOrderSize = 1;
+        private int maxOrderSize = 20;
+        private int meanStock = 50;
+        private int normalWeight = 60;
+        private int seasonalWeight = 25;
+        private int expirableWeight = 15;
+        private int batchSize = 1000;
+        private long seed = 42;
+    }
+}
@@ -0,0 +1,131 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load driver for {@code POST /api/orders/{id}/processOrder}.
+ * <p>
+ * Each client sends its next request as soon as the previous one has answered, on an order drawn uniformly from the
+ * given id range. Requests sent during the warm-up are not recorded. Options, as {@code --name=value}:
+ * <ul>
+ *     <li>{@code base-url}, default {@code http://localhost:8080/api}</li>
+ *     <li>{@code orders}, the id range of the generated orders, e.g. {@code 1-100000}</li>
+ *     <li>{@code clients}, default 16</li>
+ *     <li>{@code duration} and {@code warmup}, default 60s and 10s</li>
+ *     <li>{@code report}, where the JSON report is written, default {@code target/loadtest-report.json}</li>
+ * </ul>
+ */
+public final class LoadDriver {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final long firstOrderId;
+    private final long lastOrderId;
+    private final int clients;
+    private final Duration warmup;
+    private final Duration duration;
+
+    LoadDriver(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080/api");
+        String[] orders = options.getOrDefault("orders", "1-1000").split("-");
+        this.firstOrderId = Long.parseLong(orders[0]);
+        this.lastOrderId = Long.parseLong(orders[1]);
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+        this.warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        this.duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        LoadReport report = new LoadDriver(options).run();
+        System.out.println(report.format());
+        Path reportPath = Path.of(options.getOrDefault("report", "target/loadtest-report.json"));
+        report.write(reportPath);
+        System.out.println("report written to " + reportPath.toAbsolutePath());
+    }
+
+    LoadReport run() throws Exception {
+        long startNanos = System.nanoTime();
+        long recordFromNanos = startNanos + warmup.toNanos();
+        long endNanos = recordFromNanos + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<ClientStats>> futures = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                long seed = client;
+                futures.add(executor.submit(() -> runClient(seed, recordFromNanos, endNanos)));
+            }
+            LoadReport report = new LoadReport(clients, duration);
+            for (Future<ClientStats> future : futures) {
+                ClientStats stats = future.get();
+                report.add(stats.latencies, stats.outcomes);
+            }
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ClientStats runClient(long seed, long recordFromNanos, long endNanos) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ClientStats stats = new ClientStats();
+        long now = System.nanoTime();
+        while (now < endNanos) {
+            long orderId = firstOrderId + random.nextLong(lastOrderId - firstOrderId + 1);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + orderId + "/processOrder"))
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            String outcome;
+            long sentNanos = System.nanoTime();
+            try {
+                outcome = Integer.toString(httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+            } catch (IOException e) {
+                outcome = e.getClass().getSimpleName();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            now = System.nanoTime();
+            if (sentNanos >= recordFromNanos && now <= endNanos) {
+                stats.latencies.add(now - sentNanos);
+                stats.outcomes.merge(outcome, 1L, Long::sum);
+            }
+        }
+        return stats;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static final class ClientStats {
+        private final LongArray latencies = new LongArray();
+        private final Map<String, Long> outcomes = new HashMap<>();
+    }
+}
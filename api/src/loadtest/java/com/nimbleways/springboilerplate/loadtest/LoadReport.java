@@ -0,0 +1,87 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput, latency percentiles and error rate of a load test run
+ */
+final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final int clients;
+    private final Duration duration;
+    private final LongArray latencies = new LongArray();
+    private final Map<String, Long> outcomes = new TreeMap<>();
+
+    LoadReport(int clients, Duration duration) {
+        this.clients = clients;
+        this.duration = duration;
+    }
+
+    void add(LongArray clientLatencies, Map<String, Long> clientOutcomes) {
+        latencies.addAll(clientLatencies);
+        clientOutcomes.forEach((outcome, count) -> outcomes.merge(outcome, count, Long::sum));
+    }
+
+    Map<String, Object> summary() {
+        long[] sorted = latencies.toArray();
+        Arrays.sort(sorted);
+        long requests = sorted.length;
+        long errors = outcomes.entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("2"))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("clients", clients);
+        summary.put("durationSeconds", duration.toSeconds());
+        summary.put("requests", requests);
+        summary.put("throughputPerSecond", requests / Math.max(1.0, duration.toMillis() / 1000.0));
+        summary.put("errorRate", requests == 0 ? 0.0 : (double) errors / requests);
+        Map<String, Double> latencyMillis = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            String label = percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile);
+            latencyMillis.put("p" + label, toMillis(percentile(sorted, percentile)));
+        }
+        latencyMillis.put("max", toMillis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        summary.put("latencyMillis", latencyMillis);
+        summary.put("outcomes", outcomes);
+        return summary;
+    }
+
+    String format() {
+        Map<String, Object> summary = summary();
+        StringBuilder report = new StringBuilder();
+        summary.forEach((name, value) -> report.append(String.format("%-20s %s%n", name, value)));
+        return report.toString();
+    }
+
+    void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), summary());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
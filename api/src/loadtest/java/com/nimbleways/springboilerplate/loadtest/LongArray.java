@@ -0,0 +1,33 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive longs, to hold millions of ids or latencies without boxing
+ */
+final class LongArray {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    void addAll(LongArray other) {
+        for (int index = 0; index < other.size; index++) {
+            add(other.values[index]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,17 @@
+package com.nimbleways.springboilerplate.config;
+
+public enum NotificationDeliveryMode {
+    /**
+     * notifications are sent on the order processing thread, inside its transaction
+     */
+    SYNC,
+    /**
+     * notifications are queued after the transaction commits and sent in batches by a background worker
+     */
+    ASYNC,
+    /**
+     * notifications are written to the outbox table inside the transaction and relayed in batches by a background
+     * worker once committed
+     */
+    OUTBOX
+}
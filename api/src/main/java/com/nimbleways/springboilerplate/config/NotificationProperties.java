@@ -0,0 +1,114 @@
+package com.nimbleways.springboilerplate.config;
+
+import com.nimbleways.springboilerplate.services.notifications.NotificationKind;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Settings of the delivery of customer notifications
+ */
+@ConfigurationProperties(prefix = "notifications")
+@Getter
+@Setter
+public class NotificationProperties {
+
+    private NotificationDeliveryMode delivery = NotificationDeliveryMode.OUTBOX;
+
+    private final Async async = new Async();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    @Getter
+    @Setter
+    public static class Async {
+
+        /**
+         * Notifications waiting for delivery beyond which the overflow policy applies
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of notifications handed to the notifier in one go
+         */
+        private int batchSize = 100;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        /**
+         * How long {@link OverflowPolicy#BLOCK} waits for room in the queue before dropping the notification
+         */
+        private Duration offerTimeout = Duration.ofMillis(50);
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+
+        /**
+         * Rows relayed and marked delivered in one transaction
+         */
+        private int batchSize = 500;
+
+        /**
+         * Delay before the relay polls the outbox again once it is drained
+         */
+        private Duration pollInterval = Duration.ofMillis(200);
+
+        /**
+         * How long delivered rows are kept before being purged
+         */
+        private Duration retention = Duration.ofDays(1);
+
+        private Duration purgeInterval = Duration.ofMinutes(5);
+
+        /**
+         * Rows deleted per purge statement
+         */
+        private int purgeBatchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Coalescing {
+
+        private boolean enabled = true;
+
+        /**
+         * Kinds of notifications sent at most once per product and window
+         */
+        private Set<NotificationKind> kinds = EnumSet.of(NotificationKind.OUT_OF_STOCK, NotificationKind.EXPIRATION);
+
+        private Duration window = Duration.ofMinutes(5);
+
+        /**
+         * Products tracked at once, the least recently notified ones being evicted first
+         */
+        private int maxWindows = 10_000;
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * wait for room in the queue, up to the offer timeout
+         */
+        BLOCK,
+        /**
+         * discard the notification being published
+         */
+        DROP_NEWEST,
+        /**
+         * discard the oldest queued notification to make room
+         */
+        DROP_OLDEST,
+        /**
+         * deliver the notification on the publishing thread
+         */
+        CALLER_RUNS
+    }
+}
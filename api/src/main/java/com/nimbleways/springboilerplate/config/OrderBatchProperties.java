@@ -0,0 +1,19 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the batch order processing endpoint
+ */
+@ConfigurationProperties(prefix = "orders.batch")
+@Getter
+@Setter
+public class OrderBatchProperties {
+
+    /**
+     * Number of orders loaded and processed in one transaction
+     */
+    private int chunkSize = 100;
+}
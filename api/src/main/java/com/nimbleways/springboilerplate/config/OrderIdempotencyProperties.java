@@ -0,0 +1,26 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the replay of order processing responses for the {@code Idempotency-Key} header
+ */
+@ConfigurationProperties(prefix = "orders.idempotency")
+@Getter
+@Setter
+public class OrderIdempotencyProperties {
+
+    /**
+     * How long a response is replayed for the same idempotency key
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * Responses kept at once, the oldest ones being evicted first
+     */
+    private int maxEntries = 10_000;
+}
@@ -0,0 +1,31 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the asynchronous order processing jobs
+ */
+@ConfigurationProperties(prefix = "orders.jobs")
+@Getter
+@Setter
+public class OrderJobProperties {
+
+    /**
+     * Orders processed in parallel
+     */
+    private int workers = 4;
+
+    /**
+     * Jobs waiting for a worker beyond which new jobs are rejected
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * How long the status of a finished job can be polled
+     */
+    private Duration ttl = Duration.ofMinutes(15);
+}
@@ -0,0 +1,19 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the processing of an order
+ */
+@ConfigurationProperties(prefix = "orders.processing")
+@Getter
+@Setter
+public class OrderProcessingProperties {
+
+    /**
+     * Order items from which the business rules are applied in parallel, on the common fork/join pool
+     */
+    private int parallelDecisionThreshold = 1000;
+}
@@ -0,0 +1,57 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Settings of the order processing queue shared by the instances
+ */
+@ConfigurationProperties(prefix = "orders.queue")
+@Getter
+@Setter
+public class OrderQueueProperties {
+
+    /**
+     * Workers claiming and processing queued orders on this instance, none to only enqueue
+     */
+    private int workers = 2;
+
+    /**
+     * Entries a worker claims at once
+     */
+    private int claimBatchSize = 10;
+
+    /**
+     * Delay before a worker polls the queue again once it is drained
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * How long a claimed entry is held before other instances can claim it again, longer than a batch takes
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Processing attempts after which an entry is dead-lettered
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Delay before the first retry, doubled on every further attempt
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Upper bound of the retry delay
+     */
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    /**
+     * Lease owner recorded on the claimed entries, unique per instance
+     */
+    private String instanceId = UUID.randomUUID().toString();
+}
@@ -0,0 +1,31 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the per-order processing trace, logged by the {@code orders.trace} logger
+ */
+@ConfigurationProperties(prefix = "orders.trace")
+@Getter
+@Setter
+public class OrderTraceProperties {
+
+    /**
+     * Share of the orders whose trace is logged whatever their duration, from 0 to 1
+     */
+    private double sampleRate = 0.001;
+
+    /**
+     * Processing time from which the trace of an order is always logged
+     */
+    private Duration slowThreshold = Duration.ofMillis(250);
+
+    /**
+     * Items recorded per order, the others being only counted
+     */
+    private int maxItems = 256;
+}
@@ -0,0 +1,42 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory cache of product reference data
+ */
+@ConfigurationProperties(prefix = "products.cache")
+@Getter
+@Setter
+public class ProductCacheProperties {
+
+    /**
+     * Whether orders read the product reference data from the cache, rather than with their items
+     */
+    private boolean enabled = true;
+
+    /**
+     * Products kept in the cache, the least recently used being evicted first
+     */
+    private int maxSize = 100_000;
+
+    /**
+     * Most ordered products loaded into the cache at startup
+     */
+    private int warmUpSize = 1000;
+
+    /**
+     * Delay between two reads of the product change log, that is how long other instances may serve stale data
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long product changes are kept in the change log. An instance that could not read the log for longer
+     * clears its whole cache.
+     */
+    private Duration changeRetention = Duration.ofHours(1);
+}
@@ -0,0 +1,19 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the streaming export of the products
+ */
+@ConfigurationProperties(prefix = "products.export")
+@Getter
+@Setter
+public class ProductExportProperties {
+
+    /**
+     * Rows fetched from the cursor per round trip, and written to the response between two flushes
+     */
+    private int fetchSize = 1000;
+}
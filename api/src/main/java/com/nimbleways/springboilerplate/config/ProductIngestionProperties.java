@@ -0,0 +1,24 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the NDJSON product import and restock
+ */
+@ConfigurationProperties(prefix = "products.ingestion")
+@Getter
+@Setter
+public class ProductIngestionProperties {
+
+    /**
+     * Records written per JDBC batch and per transaction
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Rejected lines listed in the response, the others being only counted
+     */
+    private int maxReportedErrors = 1000;
+}
@@ -0,0 +1,39 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the daily sweep of expired and out-of-season products
+ */
+@ConfigurationProperties(prefix = "products.lifecycle")
+@Getter
+@Setter
+public class ProductLifecycleProperties {
+
+    /**
+     * Whether the sweep is scheduled at all
+     */
+    private boolean enabled = true;
+
+    /**
+     * When the sweep runs, by default right after the day rollover
+     */
+    private String cron = "0 0 0 * * *";
+
+    /**
+     * Whether a sweep also runs at startup, to catch up with a rollover missed while the application was down
+     */
+    private boolean sweepOnStartup = true;
+
+    /**
+     * Products cleared, or whose sellable window is filled in, per statement and per transaction
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Whether products stored without a sellable window get one at startup
+     */
+    private boolean backfillOnStartup = true;
+}
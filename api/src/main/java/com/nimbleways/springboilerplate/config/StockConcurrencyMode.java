@@ -0,0 +1,20 @@
+package com.nimbleways.springboilerplate.config;
+
+public enum StockConcurrencyMode {
+    /**
+     * conditional {@code UPDATE ... SET available = available - 1 WHERE available > 0}
+     */
+    ATOMIC,
+    /**
+     * compare-and-set on the product version, retried a bounded number of times
+     */
+    OPTIMISTIC,
+    /**
+     * row locks taken in product id order before any stock change
+     */
+    PESSIMISTIC,
+    /**
+     * in-memory counters journaled to a memory-mapped file and written back to the database in the background
+     */
+    LEDGER
+}
@@ -0,0 +1,79 @@
+package com.nimbleways.springboilerplate.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the stock updates made while processing orders
+ */
+@ConfigurationProperties(prefix = "stock")
+@Getter
+@Setter
+public class StockProperties {
+
+    /**
+     * How concurrent decrements of the same product are serialized
+     */
+    private StockConcurrencyMode concurrency = StockConcurrencyMode.ATOMIC;
+
+    private final Optimistic optimistic = new Optimistic();
+
+    private final Ledger ledger = new Ledger();
+
+    private final Reservation reservation = new Reservation();
+
+    @Getter
+    @Setter
+    public static class Optimistic {
+
+        /**
+         * Attempts made after the first version conflict before giving up
+         */
+        private int maxRetries = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class Ledger {
+
+        /**
+         * Memory-mapped file where every stock change is appended before being acknowledged
+         */
+        private Path journalPath = Path.of("data", "stock-ledger.journal");
+
+        /**
+         * Size of the journal; a full journal forces a synchronous flush
+         */
+        private DataSize journalSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Delay between two write-backs of the coalesced stock changes
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Number of independently locked segments of the in-memory stock table, rounded up to a power of two
+         */
+        private int stripes = 64;
+    }
+
+    @Getter
+    @Setter
+    public static class Reservation {
+
+        /**
+         * How long reserved units are held before being put back in stock, unless the reservation is confirmed
+         */
+        private Duration ttl = Duration.ofMinutes(15);
+
+        /**
+         * Delay between two sweeps returning the expired holds
+         */
+        private Duration reapInterval = Duration.ofSeconds(1);
+    }
+}
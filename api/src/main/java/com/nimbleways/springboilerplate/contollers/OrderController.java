@@ -1,27 +1,99 @@
 package com.nimbleways.springboilerplate.contollers;
 
 import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderJobResponse;
+import com.nimbleways.springboilerplate.dto.order.OrderQueueEntryResponse;
+import com.nimbleways.springboilerplate.dto.order.ProcessOrdersRequest;
+import com.nimbleways.springboilerplate.dto.order.ProcessOrdersResponse;
+import com.nimbleways.springboilerplate.dto.order.StockReservationResponse;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
-import com.nimbleways.springboilerplate.services.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.OrderBatchProcessingService;
+import com.nimbleways.springboilerplate.services.OrderIdempotencyService;
+import com.nimbleways.springboilerplate.services.OrderJobService;
+import com.nimbleways.springboilerplate.services.queue.OrderQueueService;
+import com.nimbleways.springboilerplate.services.reservations.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.validation.Valid;
+import java.util.List;
+
 @RestController
 @RequestMapping("/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
-    private final OrderProcessingService orderProcessingService;
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final OrderIdempotencyService orderIdempotencyService;
+    private final OrderBatchProcessingService orderBatchProcessingService;
+    private final OrderJobService orderJobService;
+    private final StockReservationService stockReservationService;
+    private final OrderQueueService orderQueueService;
 
     @PostMapping("{orderId}/processOrder")
     @ResponseStatus(HttpStatus.OK)
-    public ProcessOrderResponse processOrder(@PathVariable Long orderId) {
-        OrderDto orderDto = orderProcessingService.processOrder(orderId);
+    public ProcessOrderResponse processOrder(@PathVariable Long orderId,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        OrderDto orderDto = orderIdempotencyService.processOrder(orderId, idempotencyKey);
         return new ProcessOrderResponse(orderDto.getId());
     }
+
+    @PostMapping(value = "{orderId}/processOrder", params = "async=true")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public OrderJobResponse processOrderAsync(@PathVariable Long orderId,
+                                              @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return orderIdempotencyService.submitOrder(orderId, idempotencyKey);
+    }
+
+    @GetMapping("jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderJobResponse getJob(@PathVariable String jobId) {
+        return orderJobService.getJob(jobId);
+    }
+
+    @PostMapping("processOrders")
+    @ResponseStatus(HttpStatus.OK)
+    public ProcessOrdersResponse processOrders(@Valid @RequestBody ProcessOrdersRequest request) {
+        return new ProcessOrdersResponse(orderBatchProcessingService.processOrders(request.orderIds()));
+    }
+
+    @PostMapping("queue")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public List<OrderQueueEntryResponse> enqueueOrders(@Valid @RequestBody ProcessOrdersRequest request) {
+        return orderQueueService.enqueue(request.orderIds());
+    }
+
+    @GetMapping("queue/{entryId}")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderQueueEntryResponse getQueueEntry(@PathVariable Long entryId) {
+        return orderQueueService.getEntry(entryId);
+    }
+
+    @PostMapping("{orderId}/reservation")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StockReservationResponse reserve(@PathVariable Long orderId) {
+        return stockReservationService.reserve(orderId);
+    }
+
+    @PostMapping("{orderId}/reservation/confirm")
+    @ResponseStatus(HttpStatus.OK)
+    public StockReservationResponse confirmReservation(@PathVariable Long orderId) {
+        return stockReservationService.confirm(orderId);
+    }
+
+    @DeleteMapping("{orderId}/reservation")
+    @ResponseStatus(HttpStatus.OK)
+    public StockReservationResponse releaseReservation(@PathVariable Long orderId) {
+        return stockReservationService.release(orderId);
+    }
 }
@@ -0,0 +1,53 @@
+package com.nimbleways.springboilerplate.contollers;
+
+import com.nimbleways.springboilerplate.dto.product.ProductAvailability;
+import com.nimbleways.springboilerplate.dto.product.ProductExportFormat;
+import com.nimbleways.springboilerplate.dto.product.ProductIngestionResponse;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.services.export.ProductExportService;
+import com.nimbleways.springboilerplate.services.ingestion.ProductIngestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+
+/**
+ * Bulk loads and exports of the catalog, streamed: bodies are read as they arrive and exports written as they are read
+ */
+@RestController
+@RequestMapping("/products")
+@RequiredArgsConstructor
+public class ProductController {
+
+    private final ProductIngestionService productIngestionService;
+    private final ProductExportService productExportService;
+
+    @PostMapping(value = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public ProductIngestionResponse importProducts(InputStream body) {
+        return productIngestionService.importProducts(body);
+    }
+
+    @PostMapping(value = "restock", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public ProductIngestionResponse restock(InputStream body) {
+        return productIngestionService.restock(body);
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "NDJSON") ProductExportFormat format,
+                                                        @RequestParam(required = false) ProductType type,
+                                                        @RequestParam(required = false) ProductAvailability availability) {
+        StreamingResponseBody body = output -> productExportService.export(format, type, availability, output);
+        return ResponseEntity.ok().contentType(format.getMediaType()).body(body);
+    }
+}
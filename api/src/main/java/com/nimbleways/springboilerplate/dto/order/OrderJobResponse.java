@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+import java.time.Instant;
+
+/**
+ * Status of an asynchronous order processing job, {@code result} being set once the job is completed
+ */
+public record OrderJobResponse(String jobId, Long orderId, OrderJobStatus status, OrderProcessingResult result,
+                               Instant submittedAt, Instant finishedAt) {
+}
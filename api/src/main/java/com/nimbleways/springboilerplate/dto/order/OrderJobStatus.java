@@ -0,0 +1,7 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+public enum OrderJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,16 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+public record OrderProcessingResult(Long orderId, OrderProcessingStatus status, String error) {
+
+    public static OrderProcessingResult processed(Long orderId) {
+        return new OrderProcessingResult(orderId, OrderProcessingStatus.PROCESSED, null);
+    }
+
+    public static OrderProcessingResult notFound(Long orderId) {
+        return new OrderProcessingResult(orderId, OrderProcessingStatus.NOT_FOUND, "Order not found with id: " + orderId);
+    }
+
+    public static OrderProcessingResult failed(Long orderId, String error) {
+        return new OrderProcessingResult(orderId, OrderProcessingStatus.FAILED, error);
+    }
+}
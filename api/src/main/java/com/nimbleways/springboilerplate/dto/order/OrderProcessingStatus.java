@@ -0,0 +1,7 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+public enum OrderProcessingStatus {
+    PROCESSED,
+    NOT_FOUND,
+    FAILED
+}
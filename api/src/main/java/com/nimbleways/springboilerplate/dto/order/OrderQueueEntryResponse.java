@@ -0,0 +1,18 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+import com.nimbleways.springboilerplate.entities.OrderQueueEntry;
+import com.nimbleways.springboilerplate.entities.OrderQueueStatus;
+
+import java.time.Instant;
+
+/**
+ * Order processing queue entry, {@code lastError} being the failure of the latest attempt, if any
+ */
+public record OrderQueueEntryResponse(Long entryId, Long orderId, OrderQueueStatus status, int attempts,
+                                      Instant availableAt, String lastError, Instant finishedAt) {
+
+    public static OrderQueueEntryResponse of(OrderQueueEntry entry) {
+        return new OrderQueueEntryResponse(entry.getId(), entry.getOrderId(), entry.getStatus(), entry.getAttempts(),
+                entry.getAvailableAt(), entry.getLastError(), entry.getFinishedAt());
+    }
+}
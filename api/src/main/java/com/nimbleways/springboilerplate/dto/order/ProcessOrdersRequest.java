@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+public record ProcessOrdersRequest(@NotEmpty List<@NotNull Long> orderIds) {
+}
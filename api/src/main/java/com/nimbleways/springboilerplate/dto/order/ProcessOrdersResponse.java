@@ -0,0 +1,6 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+import java.util.List;
+
+public record ProcessOrdersResponse(List<OrderProcessingResult> results) {
+}
@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+import java.time.Instant;
+
+/**
+ * Stock held for an order, {@code expiresAt} being set once the units are taken
+ */
+public record StockReservationResponse(Long orderId, StockReservationStatus status, Instant expiresAt) {
+}
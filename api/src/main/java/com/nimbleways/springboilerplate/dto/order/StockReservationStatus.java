@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.dto.order;
+
+public enum StockReservationStatus {
+    RESERVING,
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
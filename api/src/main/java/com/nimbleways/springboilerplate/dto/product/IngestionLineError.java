@@ -0,0 +1,7 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+/**
+ * Line of an NDJSON body that was not written, numbered from 1
+ */
+public record IngestionLineError(long line, String message) {
+}
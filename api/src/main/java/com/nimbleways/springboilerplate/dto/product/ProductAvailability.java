@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+/**
+ * Whether a product can be ordered today: it must be within its sellable window and have units left
+ */
+public enum ProductAvailability {
+    IN_STOCK,
+    OUT_OF_STOCK,
+    NOT_SELLABLE
+}
@@ -0,0 +1,18 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import org.springframework.http.MediaType;
+
+public enum ProductExportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(new MediaType("text", "csv"));
+
+    private final MediaType mediaType;
+
+    ProductExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
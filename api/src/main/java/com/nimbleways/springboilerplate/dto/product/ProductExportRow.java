@@ -0,0 +1,13 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import com.nimbleways.springboilerplate.entities.ProductType;
+
+import java.time.LocalDate;
+
+/**
+ * Line of the product export: the product with its current stock and availability
+ */
+public record ProductExportRow(Long id, String name, ProductType type, Integer leadTime, int available,
+                               ProductAvailability availability, LocalDate expiryDate, LocalDate seasonStartDate,
+                               LocalDate seasonEndDate) {
+}
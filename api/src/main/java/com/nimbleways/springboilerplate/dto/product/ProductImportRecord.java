@@ -0,0 +1,30 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+
+/**
+ * Line of a product import: the reference data of the product with the given id, or of a new product when there is
+ * none. {@code available} is the stock of new products only, existing ones being restocked.
+ */
+public record ProductImportRecord(Long id, @NotBlank String name, @NotNull ProductType type,
+                                  @NotNull @PositiveOrZero Integer leadTime, @PositiveOrZero Integer available,
+                                  LocalDate expiryDate, LocalDate seasonStartDate, LocalDate seasonEndDate) {
+
+    public Product toProduct() {
+        Product product = new Product();
+        product.setName(name);
+        product.setType(type);
+        product.setLeadTime(leadTime);
+        product.setAvailable(available);
+        product.setExpiryDate(expiryDate);
+        product.setSeasonStartDate(seasonStartDate);
+        product.setSeasonEndDate(seasonEndDate);
+        return product;
+    }
+}
@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import java.util.List;
+
+/**
+ * Outcome of an import or a restock. {@code errors} lists the first rejected lines, up to
+ * {@code products.ingestion.max-reported-errors}, while {@code rejected} counts them all.
+ */
+public record ProductIngestionResponse(long accepted, long rejected, List<IngestionLineError> errors) {
+}
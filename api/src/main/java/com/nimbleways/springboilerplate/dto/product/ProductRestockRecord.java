@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+/**
+ * Line of a restock: units to add to the stock of the product
+ */
+public record ProductRestockRecord(@NotNull Long id, @NotNull @Positive Integer units) {
+}
@@ -0,0 +1,62 @@
+package com.nimbleways.springboilerplate.entities;
+
+import com.nimbleways.springboilerplate.services.notifications.Notification;
+import com.nimbleways.springboilerplate.services.notifications.NotificationKind;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import javax.persistence.*;
+
+/**
+ * Notification waiting in the outbox, written in the transaction of the change it is about
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "notification_outbox")
+public class NotificationOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @GenericGenerator(name = "notification_outbox_seq", strategy = "com.nimbleways.springboilerplate.entities.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "notification_outbox_seq"))
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind")
+    private NotificationKind kind;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "lead_time")
+    private Integer leadTime;
+
+    @Column(name = "expiry_date")
+    private LocalDate expiryDate;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    /**
+     * Set once the notification is handed over to the notifier
+     */
+    @Column(name = "delivered_at")
+    private Instant deliveredAt;
+
+    public static NotificationOutboxEntry of(Notification notification, Instant now) {
+        return new NotificationOutboxEntry(null, notification.kind(), notification.productName(), notification.leadTime(),
+                notification.expiryDate(), now, null);
+    }
+
+    public Notification toNotification() {
+        return new Notification(kind, productName, leadTime, expiryDate);
+    }
+}
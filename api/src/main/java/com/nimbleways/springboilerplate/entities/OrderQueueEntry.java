@@ -0,0 +1,80 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+/**
+ * Order waiting in the processing queue shared by the instances. An entry is {@link OrderQueueStatus#RUNNING} while
+ * an instance holds its lease, and goes back to {@link OrderQueueStatus#PENDING} until {@code availableAt} when a
+ * processing attempt fails. The version guards the claims, so that an entry is held by one instance at a time.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "order_processing_queue")
+public class OrderQueueEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_processing_queue_seq")
+    @GenericGenerator(name = "order_processing_queue_seq", strategy = "com.nimbleways.springboilerplate.entities.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "order_processing_queue_seq"))
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private OrderQueueStatus status;
+
+    /**
+     * Processing attempts started, counted on claim
+     */
+    @Column(name = "attempts")
+    private int attempts;
+
+    /**
+     * When a pending entry can be claimed, pushed back by the retry backoff
+     */
+    @Column(name = "available_at")
+    private Instant availableAt;
+
+    /**
+     * Instance that holds the entry, or held it last once finished
+     */
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public static OrderQueueEntry pending(Long orderId, Instant now) {
+        OrderQueueEntry entry = new OrderQueueEntry();
+        entry.orderId = orderId;
+        entry.status = OrderQueueStatus.PENDING;
+        entry.availableAt = now;
+        entry.createdAt = now;
+        return entry;
+    }
+}
@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.entities;
+
+public enum OrderQueueStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    DEAD
+}
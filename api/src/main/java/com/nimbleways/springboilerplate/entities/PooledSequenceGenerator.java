@@ -0,0 +1,34 @@
+package com.nimbleways.springboilerplate.entities;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator that reserves a block of ids per sequence call, sized by the {@value #ALLOCATION_SIZE_SETTING}
+ * Hibernate setting, so that inserts can be batched: the ids are known before the rows are written, unlike with
+ * identity columns.
+ * <p>
+ * Uses the pooled-lo optimizer, where a sequence value is the first id of its block. Rows inserted without an id take
+ * the next sequence value as column default, which reserves a whole block and never collides with the entities.
+ * The sequence must be incremented by the allocation size, see the {@code ids.allocation-size} setting.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "ids.allocation_size";
+    static final String DEFAULT_ALLOCATION_SIZE = "50";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.STRING, DEFAULT_ALLOCATION_SIZE);
+        params.setProperty(INCREMENT_PARAM, allocationSize);
+        params.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+    }
+}
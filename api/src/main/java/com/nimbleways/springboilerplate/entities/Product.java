@@ -1,6 +1,9 @@
 package com.nimbleways.springboilerplate.entities;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDate;
 
@@ -11,17 +14,24 @@ import javax.persistence.*;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_sellable_window", columnList = "sellable_from, sellable_until"))
+@SecondaryTable(name = ProductStock.TABLE, pkJoinColumns = @PrimaryKeyJoinColumn(name = "product_id"))
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @GenericGenerator(name = "products_seq", strategy = "com.nimbleways.springboilerplate.entities.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "products_seq"))
     @Column(name = "id")
     private Long id;
 
     @Column(name = "lead_time")
     private Integer leadTime;
 
-    @Column(name = "available")
+    /**
+     * Kept in the narrow {@link ProductStock} row, written with the product on creation only: stock changes go through
+     * {@link com.nimbleways.springboilerplate.services.StockConcurrencyStrategy}
+     */
+    @Column(table = ProductStock.TABLE, name = "available", updatable = false)
     private Integer available;
 
     @Enumerated(EnumType.STRING)
@@ -39,4 +49,50 @@ public class Product {
 
     @Column(name = "season_end_date")
     private LocalDate seasonEndDate;
+
+    /**
+     * First day the product can be sold, kept in sync with its type and dates, see {@link SellableWindow}
+     */
+    @Column(name = "sellable_from")
+    private LocalDate sellableFrom;
+
+    /**
+     * Last day the product can be sold
+     */
+    @Column(name = "sellable_until")
+    private LocalDate sellableUntil;
+
+    /**
+     * Version of the stock row, bumped by every stock change
+     */
+    @Column(table = ProductStock.TABLE, name = "version", updatable = false)
+    private Long version;
+
+    @PrePersist
+    void initialize() {
+        if (available == null) {
+            available = 0;
+        }
+        if (version == null) {
+            version = 0L;
+        }
+        updateSellableWindow();
+    }
+
+    @PreUpdate
+    public void updateSellableWindow() {
+        SellableWindow window = SellableWindow.of(type, expiryDate, seasonStartDate, seasonEndDate);
+        sellableFrom = window.from();
+        sellableUntil = window.until();
+    }
+
+    /**
+     * Falls back to the product dates for rows whose window is not filled in yet
+     */
+    public boolean isSellableOn(LocalDate date) {
+        if (sellableFrom == null || sellableUntil == null) {
+            return SellableWindow.of(type, expiryDate, seasonStartDate, seasonEndDate).contains(date);
+        }
+        return SellableWindow.contains(sellableFrom, sellableUntil, date);
+    }
 }
@@ -0,0 +1,31 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Stock of a product, apart from its reference data so that stock changes only write and lock this narrow row.
+ * Also mapped as the secondary table of {@link Product}, which reads it with the product.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = ProductStock.TABLE)
+public class ProductStock {
+
+    public static final String TABLE = "product_stock";
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "available")
+    private Integer available;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+}
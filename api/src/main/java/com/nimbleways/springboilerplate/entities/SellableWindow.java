@@ -0,0 +1,40 @@
+package com.nimbleways.springboilerplate.entities;
+
+import java.time.LocalDate;
+
+/**
+ * Days during which a product can be sold, both bounds included, derived from its type and dates:
+ * <ul>
+ *     <li>NORMAL products can always be sold</li>
+ *     <li>EXPIRABLE products until the day before their expiry date</li>
+ *     <li>SEASONAL products strictly between the start and the end of their season</li>
+ * </ul>
+ * Open bounds are stored as {@link #ALWAYS_FROM} and {@link #ALWAYS_UNTIL}, so that "sellable on a day" is a plain
+ * range check on indexed columns.
+ */
+public record SellableWindow(LocalDate from, LocalDate until) {
+
+    public static final LocalDate ALWAYS_FROM = LocalDate.of(1970, 1, 1);
+    public static final LocalDate ALWAYS_UNTIL = LocalDate.of(9999, 12, 31);
+
+    public static SellableWindow of(ProductType type, LocalDate expiryDate, LocalDate seasonStartDate,
+                                    LocalDate seasonEndDate) {
+        if (type == ProductType.EXPIRABLE) {
+            return new SellableWindow(ALWAYS_FROM, expiryDate == null ? ALWAYS_UNTIL : expiryDate.minusDays(1));
+        }
+        if (type == ProductType.SEASONAL) {
+            return new SellableWindow(
+                    seasonStartDate == null ? ALWAYS_FROM : seasonStartDate.plusDays(1),
+                    seasonEndDate == null ? ALWAYS_UNTIL : seasonEndDate.minusDays(1));
+        }
+        return new SellableWindow(ALWAYS_FROM, ALWAYS_UNTIL);
+    }
+
+    public boolean contains(LocalDate date) {
+        return contains(from, until, date);
+    }
+
+    static boolean contains(LocalDate from, LocalDate until, LocalDate date) {
+        return !date.isBefore(from) && !date.isAfter(until);
+    }
+}
@@ -0,0 +1,30 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Last stock ledger journal position whose changes are written to the products table.
+ * Saved in the same transaction as the changes, so that a journal replay never applies them twice.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "stock_ledger_checkpoints")
+public class StockLedgerCheckpoint {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "journal_epoch")
+    private Long journalEpoch;
+
+    @Column(name = "journal_position")
+    private Long journalPosition;
+}
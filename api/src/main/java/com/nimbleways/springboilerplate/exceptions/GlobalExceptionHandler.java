@@ -4,12 +4,14 @@ package com.nimbleways.springboilerplate.exceptions;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Global exception handler for REST controllers
@@ -30,6 +32,51 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(StockConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleStockConflictException(StockConflictException ex) {
+        log.error("Stock conflict: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OrderJobNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleOrderJobNotFoundException(OrderJobNotFoundException ex) {
+        log.error("Order job not found: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(OrderJobRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleOrderJobRejectedException(OrderJobRejectedException ex) {
+        log.warn("Order job rejected: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(StockReservationNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleStockReservationNotFoundException(StockReservationNotFoundException ex) {
+        log.warn("Stock reservation not found: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(StockReservationRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleStockReservationRejectedException(StockReservationRejectedException ex) {
+        log.warn("Stock reservation rejected: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(OrderQueueEntryNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleOrderQueueEntryNotFoundException(OrderQueueEntryNotFoundException ex) {
+        log.warn("Order queue entry not found: {}", ex.getMessage());
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, Object>> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+        log.error("Invalid request: {}", ex.getMessage());
+        String message = ex.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + " " + error.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+        return buildErrorResponse("Invalid request: " + message, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
@@ -0,0 +1,11 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * Exception thrown when an order processing job is unknown or has expired
+ */
+public class OrderJobNotFoundException extends RuntimeException {
+
+    public OrderJobNotFoundException(String jobId) {
+        super("Order processing job not found with id: " + jobId);
+    }
+}
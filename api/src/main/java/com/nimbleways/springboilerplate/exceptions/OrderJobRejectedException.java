@@ -0,0 +1,11 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * Exception thrown when the order processing job queue is full
+ */
+public class OrderJobRejectedException extends RuntimeException {
+
+    public OrderJobRejectedException(Long orderId) {
+        super("Too many pending order processing jobs, order " + orderId + " was not queued");
+    }
+}
@@ -0,0 +1,11 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * Exception thrown when an order processing queue entry is not found
+ */
+public class OrderQueueEntryNotFoundException extends RuntimeException {
+
+    public OrderQueueEntryNotFoundException(Long entryId) {
+        super("Order queue entry not found with id: " + entryId);
+    }
+}
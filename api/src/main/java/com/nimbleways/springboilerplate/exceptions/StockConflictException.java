@@ -0,0 +1,11 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * Exception thrown when the stock of a product keeps being changed concurrently
+ */
+public class StockConflictException extends RuntimeException {
+
+    public StockConflictException(Long productId) {
+        super("Stock of product " + productId + " is being updated concurrently");
+    }
+}
@@ -0,0 +1,12 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * Exception thrown when an order has no stock held, because it was never reserved or its reservation was confirmed,
+ * released or has expired
+ */
+public class StockReservationNotFoundException extends RuntimeException {
+
+    public StockReservationNotFoundException(Long orderId) {
+        super("No stock reservation held for order with id: " + orderId);
+    }
+}
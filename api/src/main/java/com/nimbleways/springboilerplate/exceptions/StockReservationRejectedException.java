@@ -0,0 +1,19 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Exception thrown when some items of an order cannot be reserved, in which case none is
+ */
+@Getter
+public class StockReservationRejectedException extends RuntimeException {
+
+    private final List<Long> unavailableProductIds;
+
+    public StockReservationRejectedException(Long orderId, List<Long> unavailableProductIds) {
+        super("Order " + orderId + " cannot be reserved, products not available: " + unavailableProductIds);
+        this.unavailableProductIds = List.copyOf(unavailableProductIds);
+    }
+}
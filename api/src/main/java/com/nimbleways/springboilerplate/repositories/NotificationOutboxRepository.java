@@ -0,0 +1,40 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Rows of the notification outbox
+ */
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntry, Long> {
+
+    /**
+     * Locks the next undelivered rows after the given id, skipping those locked by the relay of another instance
+     * where the dialect supports it, see {@link OrderQueueRepository#lockClaimable}
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select e from NotificationOutboxEntry e where e.deliveredAt is null and e.id > :afterId order by e.id")
+    List<NotificationOutboxEntry> lockUndeliveredAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("update NotificationOutboxEntry e set e.deliveredAt = :now where e.id in (:ids)")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "delete from notification_outbox where id in (select id from notification_outbox"
+            + " where delivered_at < :deliveredBefore order by id limit :limit)", nativeQuery = true)
+    int deleteDeliveredBefore(@Param("deliveredBefore") Instant deliveredBefore, @Param("limit") int limit);
+}
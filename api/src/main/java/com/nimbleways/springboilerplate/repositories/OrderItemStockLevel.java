@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.repositories;
+
+/**
+ * Stock columns of an order item, or only the order id for an order without items
+ */
+public interface OrderItemStockLevel extends ProductStockLevel {
+
+    Long getOrderId();
+}
@@ -0,0 +1,48 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import com.nimbleways.springboilerplate.entities.OrderQueueEntry;
+import com.nimbleways.springboilerplate.entities.OrderQueueStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Entries of the order processing queue shared by the instances
+ */
+public interface OrderQueueRepository extends JpaRepository<OrderQueueEntry, Long> {
+
+    /**
+     * Locks the entries that can be claimed: the pending ones that are due and the running ones whose lease expired.
+     * The lock timeout of -2 is Hibernate's {@code LockOptions.SKIP_LOCKED}, rendered as
+     * {@code for update skip locked} where the dialect supports it, so that concurrent claims take distinct entries.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OrderQueueEntry e"
+            + " where (e.status = com.nimbleways.springboilerplate.entities.OrderQueueStatus.PENDING and e.availableAt <= :now)"
+            + " or (e.status = com.nimbleways.springboilerplate.entities.OrderQueueStatus.RUNNING and e.leaseExpiresAt <= :now)"
+            + " order by e.id")
+    List<OrderQueueEntry> lockClaimable(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("update OrderQueueEntry e set e.status = :status, e.finishedAt = :now, e.leaseExpiresAt = null,"
+            + " e.lastError = :error, e.version = e.version + 1 where e.id = :id and e.version = :version")
+    int finish(@Param("id") Long id, @Param("version") Long version, @Param("status") OrderQueueStatus status,
+               @Param("now") Instant now, @Param("error") String error);
+
+    @Modifying
+    @Query("update OrderQueueEntry e set e.status = com.nimbleways.springboilerplate.entities.OrderQueueStatus.PENDING,"
+            + " e.availableAt = :availableAt, e.leaseExpiresAt = null, e.lastError = :error, e.version = e.version + 1"
+            + " where e.id = :id and e.version = :version")
+    int reschedule(@Param("id") Long id, @Param("version") Long version, @Param("availableAt") Instant availableAt,
+                   @Param("error") String error);
+}
@@ -1,11 +1,32 @@
 package com.nimbleways.springboilerplate.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.nimbleways.springboilerplate.entities.Order;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface OrderRepository extends JpaRepository<Order, UUID> {
     Optional<Order> findById(Long orderId);
+
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(Long orderId);
+
+    @Query("select distinct o from Order o left join fetch o.items where o.id in :orderIds")
+    List<Order> findAllWithItemsByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Reads the {@code product_stock} rows only of the order items, the rest of the products being served by the product cache
+     */
+    @Query(value = "select o.id as orderId, i.product_id as id, coalesce(s.available, 0) as available, "
+            + "coalesce(s.version, 0) as version from orders o "
+            + "left join order_items i on i.order_id = o.id "
+            + "left join product_stock s on s.product_id = i.product_id "
+            + "where o.id = :orderId", nativeQuery = true)
+    List<OrderItemStockLevel> findItemStockLevelsById(@Param("orderId") Long orderId);
 }
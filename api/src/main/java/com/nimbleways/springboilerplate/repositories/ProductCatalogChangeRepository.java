@@ -0,0 +1,24 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import com.nimbleways.springboilerplate.entities.ProductCatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProductCatalogChangeRepository extends JpaRepository<ProductCatalogChange, Long> {
+
+    @Query("select c from ProductCatalogChange c where c.id > :afterId order by c.id")
+    List<ProductCatalogChange> findChangesAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("select coalesce(max(c.id), 0) from ProductCatalogChange c")
+    Long findLastId();
+
+    @Modifying
+    @Query("delete from ProductCatalogChange c where c.changedAt < :before")
+    int deleteChangedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,21 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import com.nimbleways.springboilerplate.entities.ProductType;
+
+import java.time.LocalDate;
+
+/**
+ * Columns a product sellable window is derived from
+ */
+public interface ProductDates {
+
+    Long getId();
+
+    ProductType getType();
+
+    LocalDate getExpiryDate();
+
+    LocalDate getSeasonStartDate();
+
+    LocalDate getSeasonEndDate();
+}
@@ -0,0 +1,13 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import java.time.LocalDate;
+
+/**
+ * Product found by the lifecycle sweep, with what its notification needs
+ */
+public interface ProductLifecycleCandidate extends ProductStockLevel {
+
+    String getName();
+
+    LocalDate getExpiryDate();
+}
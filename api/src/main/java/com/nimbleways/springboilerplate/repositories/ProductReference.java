@@ -0,0 +1,33 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+
+import java.time.LocalDate;
+
+/**
+ * Columns of a product that do not change while orders are processed, everything but the stock
+ */
+public record ProductReference(Long id, String name, ProductType type, Integer leadTime, LocalDate expiryDate,
+                               LocalDate seasonStartDate, LocalDate seasonEndDate, LocalDate sellableFrom,
+                               LocalDate sellableUntil) {
+
+    /**
+     * @return a detached product with this reference data and the given stock
+     */
+    public Product toProduct(ProductStockLevel stockLevel) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setType(type);
+        product.setLeadTime(leadTime);
+        product.setExpiryDate(expiryDate);
+        product.setSeasonStartDate(seasonStartDate);
+        product.setSeasonEndDate(seasonEndDate);
+        product.setSellableFrom(sellableFrom);
+        product.setSellableUntil(sellableUntil);
+        product.setAvailable(stockLevel.getAvailable());
+        product.setVersion(stockLevel.getVersion());
+        return product;
+    }
+}
@@ -1,8 +1,15 @@
 package com.nimbleways.springboilerplate.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.nimbleways.springboilerplate.entities.Product;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,4 +17,35 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
     Optional<Product> findById(Long productId);
 
     Optional<Product> findFirstByName(String name);
+
+    @Query("select p.id as id, p.available as available, p.version as version, p.name as name, p.expiryDate as expiryDate "
+            + "from Product p where p.type = com.nimbleways.springboilerplate.entities.ProductType.EXPIRABLE "
+            + "and p.expiryDate <= :today and p.available > 0 and p.id > :afterId order by p.id")
+    List<ProductLifecycleCandidate> findExpiredWithStock(@Param("today") LocalDate today, @Param("afterId") Long afterId,
+                                                         Pageable page);
+
+    @Query("select p.id as id, p.available as available, p.version as version, p.name as name, p.expiryDate as expiryDate "
+            + "from Product p where p.type = com.nimbleways.springboilerplate.entities.ProductType.SEASONAL "
+            + "and p.seasonEndDate < :today and p.available > 0 and p.id > :afterId order by p.id")
+    List<ProductLifecycleCandidate> findSeasonEndedWithStock(@Param("today") LocalDate today, @Param("afterId") Long afterId,
+                                                             Pageable page);
+
+    @Query("select p from Product p where p.sellableFrom <= :date and p.sellableUntil >= :date and p.id > :afterId order by p.id")
+    List<Product> findSellableOn(@Param("date") LocalDate date, @Param("afterId") Long afterId, Pageable page);
+
+    @Query("select p.id as id, p.type as type, p.expiryDate as expiryDate, p.seasonStartDate as seasonStartDate, "
+            + "p.seasonEndDate as seasonEndDate from Product p "
+            + "where (p.sellableFrom is null or p.sellableUntil is null) and p.id > :afterId order by p.id")
+    List<ProductDates> findWithoutSellableWindow(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("select new com.nimbleways.springboilerplate.repositories.ProductReference(p.id, p.name, p.type, p.leadTime, "
+            + "p.expiryDate, p.seasonStartDate, p.seasonEndDate, p.sellableFrom, p.sellableUntil) "
+            + "from Product p where p.id in (:productIds)")
+    List<ProductReference> findReferencesByIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("select p.id from Product p where p.id in (:productIds)")
+    List<Long> findIdsByIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("select p.id from Order o join o.items p group by p.id order by count(o.id) desc")
+    List<Long> findMostOrderedIds(Pageable page);
 }
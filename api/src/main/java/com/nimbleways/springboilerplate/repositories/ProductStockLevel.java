@@ -0,0 +1,13 @@
+package com.nimbleways.springboilerplate.repositories;
+
+/**
+ * Stock columns of a product, read without loading the entity
+ */
+public interface ProductStockLevel {
+
+    Long getId();
+
+    Integer getAvailable();
+
+    Long getVersion();
+}
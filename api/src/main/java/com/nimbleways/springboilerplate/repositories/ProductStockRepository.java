@@ -0,0 +1,39 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.ProductStock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stock changes of order processing, which read and write the {@code product_stock} rows only
+ */
+public interface ProductStockRepository extends JpaRepository<ProductStock, Long> {
+
+    @Query("select s.productId as id, s.available as available, s.version as version from ProductStock s where s.productId = :productId")
+    Optional<ProductStockLevel> findStockLevelById(@Param("productId") Long productId);
+
+    @Query(value = "select product_id as id, available, version from product_stock where product_id in (:productIds) order by product_id for update", nativeQuery = true)
+    List<ProductStockLevel> lockStockLevelsOrderedById(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("update ProductStock s set s.available = s.available - 1, s.version = s.version + 1 where s.productId = :productId and s.available > 0")
+    int decrementAvailable(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("update ProductStock s set s.available = :available, s.version = s.version + 1 where s.productId = :productId and s.version = :version")
+    int updateAvailable(@Param("productId") Long productId, @Param("available") int available, @Param("version") Long version);
+
+    @Modifying
+    @Query("update ProductStock s set s.available = 0, s.version = s.version + 1 where s.productId = :productId and s.available <> 0")
+    int clearAvailable(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("update ProductStock s set s.available = s.available + :units, s.version = s.version + 1 where s.productId = :productId")
+    int incrementAvailable(@Param("productId") Long productId, @Param("units") int units);
+}
@@ -0,0 +1,94 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.OrderBatchProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingResult;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Processes several orders per call.
+ * Orders are handled in chunks: each chunk is loaded in one query and committed in one transaction, so that stock
+ * updates are flushed as JDBC batches. The stock rows of the whole chunk are locked up front in product id order, since
+ * they stay locked until the chunk commits and two chunks locking them order by order could deadlock. When a chunk
+ * fails, its orders are replayed one transaction each, so that one bad order does not abort the others.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBatchProcessingService {
+
+    private final OrderRepository orderRepository;
+    private final OrderProcessingService orderProcessingService;
+    private final StockConcurrencyStrategy stockConcurrencyStrategy;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderBatchProperties properties;
+
+    public List<OrderProcessingResult> processOrders(List<Long> orderIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        List<OrderProcessingResult> results = new ArrayList<>(distinctIds.size());
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            results.addAll(processChunk(chunk));
+        }
+        return results;
+    }
+
+    private List<OrderProcessingResult> processChunk(List<Long> chunk) {
+        try {
+            return transactionTemplate.execute(status -> processLoadedChunk(chunk));
+        } catch (RuntimeException e) {
+            log.warn("chunk of {} orders failed, processing them one by one: {}", chunk.size(), e.getMessage());
+            return chunk.stream().map(this::processSingleOrder).collect(Collectors.toList());
+        }
+    }
+
+    private List<OrderProcessingResult> processLoadedChunk(List<Long> chunk) {
+        Map<Long, Order> ordersById = orderRepository.findAllWithItemsByIdIn(chunk).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        stockConcurrencyStrategy.lockAll(ordersById.values().stream()
+                .flatMap(order -> order.getItems().stream())
+                .map(Product::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList()));
+        List<OrderProcessingResult> results = new ArrayList<>(chunk.size());
+        for (Long orderId : chunk) {
+            Order order = ordersById.get(orderId);
+            if (order == null) {
+                results.add(OrderProcessingResult.notFound(orderId));
+            } else {
+                orderProcessingService.processOrder(order);
+                results.add(OrderProcessingResult.processed(orderId));
+            }
+        }
+        return results;
+    }
+
+    private OrderProcessingResult processSingleOrder(Long orderId) {
+        try {
+            orderProcessingService.processOrder(orderId);
+            return OrderProcessingResult.processed(orderId);
+        } catch (OrderNotFoundException e) {
+            return OrderProcessingResult.notFound(orderId);
+        } catch (RuntimeException e) {
+            log.error("order with id: {} failed: {}", orderId, e.getMessage());
+            return OrderProcessingResult.failed(orderId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.OrderIdempotencyProperties;
+import com.nimbleways.springboilerplate.config.OrderJobProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderJobResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Protects order processing against retried and concurrent duplicate requests.
+ * <p>
+ * Requests processing the same order at the same time collapse into a single execution, whose outcome is shared by
+ * all of them. Successful responses are also stored under the {@code Idempotency-Key} of the request, when there is
+ * one, and replayed for the same key and order until {@code orders.idempotency.ttl} has elapsed. Failures are not
+ * stored, so that a retry gets a chance to succeed.
+ * <p>
+ * Asynchronous submissions are keyed the same way: a retried submission gets the job already submitted for its key
+ * and order rather than a second job. The job is only remembered for {@code orders.jobs.ttl}, if shorter, since it
+ * can no longer be polled once evicted.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private final OrderProcessingService orderProcessingService;
+    private final OrderJobService orderJobService;
+    private final OrderIdempotencyProperties properties;
+    private final OrderJobProperties jobProperties;
+    private final LongSupplier nanoTime;
+    private final Map<Long, CompletableFuture<OrderDto>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<IdempotencyKey, Stored<OrderDto>> responses = new LinkedHashMap<>();
+    private final LinkedHashMap<IdempotencyKey, Stored<String>> jobIds = new LinkedHashMap<>();
+    private final Counter replayed;
+    private final Counter joined;
+
+    @Autowired
+    public OrderIdempotencyService(OrderProcessingService orderProcessingService, OrderJobService orderJobService,
+                                   OrderIdempotencyProperties properties, OrderJobProperties jobProperties,
+                                   MeterRegistry meterRegistry) {
+        this(orderProcessingService, orderJobService, properties, jobProperties, meterRegistry, System::nanoTime);
+    }
+
+    OrderIdempotencyService(OrderProcessingService orderProcessingService, OrderJobService orderJobService,
+                            OrderIdempotencyProperties properties, OrderJobProperties jobProperties,
+                            MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.orderProcessingService = orderProcessingService;
+        this.orderJobService = orderJobService;
+        this.properties = properties;
+        this.jobProperties = jobProperties;
+        this.nanoTime = nanoTime;
+        this.replayed = Counter.builder("orders.idempotency.replayed")
+                .description("Order processing responses replayed for an already used idempotency key")
+                .register(meterRegistry);
+        this.joined = Counter.builder("orders.idempotency.joined")
+                .description("Order processing requests that waited for a concurrent execution on the same order")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param idempotencyKey key chosen by the client for the request and its retries, or {@code null}
+     */
+    public OrderDto processOrder(Long orderId, String idempotencyKey) {
+        IdempotencyKey key = IdempotencyKey.of(idempotencyKey, orderId);
+        OrderDto stored = findResponse(key);
+        if (stored != null) {
+            replayed.increment();
+            return stored;
+        }
+        CompletableFuture<OrderDto> execution = new CompletableFuture<>();
+        CompletableFuture<OrderDto> running = inFlight.putIfAbsent(orderId, execution);
+        if (running != null) {
+            joined.increment();
+            OrderDto response = await(running);
+            storeResponse(key, response);
+            return response;
+        }
+        try {
+            OrderDto response = findResponse(key);
+            if (response == null) {
+                response = orderProcessingService.processOrder(orderId);
+                storeResponse(key, response);
+            }
+            execution.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(orderId, execution);
+        }
+    }
+
+    /**
+     * Submits the order for background processing, see {@link OrderJobService#submit(Long)}
+     * @param idempotencyKey key chosen by the client for the submission and its retries, or {@code null}
+     * @return the job submitted, or the one already submitted for the same key and order
+     */
+    public OrderJobResponse submitOrder(Long orderId, String idempotencyKey) {
+        IdempotencyKey key = IdempotencyKey.of(idempotencyKey, orderId);
+        if (key == null) {
+            return orderJobService.submit(orderId);
+        }
+        synchronized (jobIds) {
+            Duration jobTtl = jobProperties.getTtl();
+            evictExpired(jobIds, jobTtl.compareTo(properties.getTtl()) < 0 ? jobTtl : properties.getTtl());
+            Stored<String> stored = jobIds.get(key);
+            if (stored != null) {
+                replayed.increment();
+                return orderJobService.getJob(stored.value());
+            }
+            OrderJobResponse job = orderJobService.submit(orderId);
+            store(jobIds, key, job.jobId());
+            return job;
+        }
+    }
+
+    private OrderDto findResponse(IdempotencyKey key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (responses) {
+            evictExpired(responses, properties.getTtl());
+            Stored<OrderDto> stored = responses.get(key);
+            return stored == null ? null : stored.value();
+        }
+    }
+
+    private void storeResponse(IdempotencyKey key, OrderDto response) {
+        if (key == null) {
+            return;
+        }
+        synchronized (responses) {
+            store(responses, key, response);
+        }
+    }
+
+    private <T> void store(Map<IdempotencyKey, Stored<T>> stored, IdempotencyKey key, T value) {
+        stored.put(key, new Stored<>(value, nanoTime.getAsLong()));
+        Iterator<Stored<T>> oldest = stored.values().iterator();
+        while (stored.size() > properties.getMaxEntries() && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void evictExpired(Map<IdempotencyKey, ? extends Stored<?>> stored, Duration ttl) {
+        long expiredBefore = nanoTime.getAsLong() - ttl.toNanos();
+        Iterator<? extends Stored<?>> oldest = stored.values().iterator();
+        while (oldest.hasNext() && oldest.next().storedAt() - expiredBefore <= 0) {
+            oldest.remove();
+        }
+    }
+
+    private static OrderDto await(CompletableFuture<OrderDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record IdempotencyKey(String key, Long orderId) {
+
+        private static IdempotencyKey of(String key, Long orderId) {
+            return key == null || key.isBlank() ? null : new IdempotencyKey(key, orderId);
+        }
+    }
+
+    private record Stored<T>(T value, long storedAt) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.OrderJobProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderJobResponse;
+import com.nimbleways.springboilerplate.dto.order.OrderJobStatus;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingResult;
+import com.nimbleways.springboilerplate.exceptions.OrderJobNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.OrderJobRejectedException;
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs order processing in the background, for clients that cannot wait for the transaction to complete.
+ * <p>
+ * Jobs are run by a fixed pool of workers fed by a bounded queue: when the queue is full, new jobs are rejected rather
+ * than piling up. The status of a job can be polled until {@code orders.jobs.ttl} after it has finished.
+ */
+@Service
+@Slf4j
+public class OrderJobService {
+
+    private final OrderProcessingService orderProcessingService;
+    private final OrderJobProperties properties;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService evictor;
+    private final Map<String, OrderJob> jobs = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final Counter rejected;
+
+    public OrderJobService(OrderProcessingService orderProcessingService, OrderJobProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.orderProcessingService = orderProcessingService;
+        this.properties = properties;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "order-job-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-job-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictionPeriod = Math.max(1000L, properties.getTtl().toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictExpired, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+        Gauge.builder("orders.jobs.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Order processing jobs waiting for a worker")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("orders.jobs.wait")
+                .description("Time order processing jobs wait for a worker")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("orders.jobs.run")
+                .description("Time spent running order processing jobs")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("orders.jobs.rejected")
+                .description("Order processing jobs rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        evictor.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public OrderJobResponse submit(Long orderId) {
+        OrderJob job = new OrderJob(UUID.randomUUID().toString(), orderId);
+        jobs.put(job.id, job);
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            rejected.increment();
+            throw new OrderJobRejectedException(orderId);
+        }
+        return job.toResponse();
+    }
+
+    public OrderJobResponse getJob(String jobId) {
+        OrderJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new OrderJobNotFoundException(jobId);
+        }
+        return job.toResponse();
+    }
+
+    void evictExpired() {
+        Instant expiredBefore = Instant.now().minus(properties.getTtl());
+        jobs.values().removeIf(job -> job.finishedAt != null && !job.finishedAt.isAfter(expiredBefore));
+    }
+
+    private void run(OrderJob job) {
+        long startNanos = System.nanoTime();
+        waitTimer.record(startNanos - job.submittedNanos, TimeUnit.NANOSECONDS);
+        job.status = OrderJobStatus.RUNNING;
+        OrderProcessingResult result;
+        try {
+            orderProcessingService.processOrder(job.orderId);
+            result = OrderProcessingResult.processed(job.orderId);
+        } catch (OrderNotFoundException e) {
+            result = OrderProcessingResult.notFound(job.orderId);
+        } catch (RuntimeException e) {
+            log.error("order processing job {} for order {} failed: {}", job.id, job.orderId, e.getMessage(), e);
+            result = OrderProcessingResult.failed(job.orderId, e.getMessage());
+        }
+        runTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        job.complete(result);
+    }
+
+    private static final class OrderJob {
+
+        private final String id;
+        private final Long orderId;
+        private final Instant submittedAt = Instant.now();
+        private final long submittedNanos = System.nanoTime();
+        private volatile OrderJobStatus status = OrderJobStatus.QUEUED;
+        private volatile OrderProcessingResult result;
+        private volatile Instant finishedAt;
+
+        private OrderJob(String id, Long orderId) {
+            this.id = id;
+            this.orderId = orderId;
+        }
+
+        private synchronized void complete(OrderProcessingResult result) {
+            this.result = result;
+            this.finishedAt = Instant.now();
+            this.status = OrderJobStatus.COMPLETED;
+        }
+
+        private synchronized OrderJobResponse toResponse() {
+            return new OrderJobResponse(id, orderId, status, result, submittedAt, finishedAt);
+        }
+    }
+}
@@ -1,60 +1,217 @@
 package com.nimbleways.springboilerplate.services;
 
+import com.nimbleways.springboilerplate.config.OrderProcessingProperties;
 import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingStatus;
 import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.entities.ProductType;
 import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
-import com.nimbleways.springboilerplate.exceptions.ProductProcessorNotFoundException;
 import com.nimbleways.springboilerplate.mappers.OrderMapper;
+import com.nimbleways.springboilerplate.repositories.OrderItemStockLevel;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
-import lombok.RequiredArgsConstructor;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import com.nimbleways.springboilerplate.services.trace.OrderTrace;
+import com.nimbleways.springboilerplate.services.trace.OrderTracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Processes the items of an order in three stages: the business rules decide the stock change and the notification of
+ * every item without side effects, in parallel for large orders; the stock changes are applied at once by the
+ * {@link StockConcurrencyStrategy}; the notifications are then published together. Each step is timed in the
+ * {@link OrderTrace} of the order, logged for slow and sampled orders only.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OrderProcessingService {
 
+    static final String PROCESS_TIMER = "orders.process";
+
     private final OrderRepository orderRepository;
-    private final List<ProductService> productServices;
+    private final ProductProcessorRegistry productProcessorRegistry;
+    private final StockConcurrencyStrategy stockConcurrencyStrategy;
     private final OrderMapper orderMapper;
+    private final ProductReferenceCache productReferenceCache;
+    private final NotificationPublisher notificationPublisher;
+    private final StockMetrics stockMetrics;
+    private final OrderProcessingProperties properties;
+    private final OrderTracer orderTracer;
+    private final Map<OrderProcessingStatus, Timer> processTimers = new EnumMap<>(OrderProcessingStatus.class);
+
+    public OrderProcessingService(OrderRepository orderRepository, ProductProcessorRegistry productProcessorRegistry,
+                                  StockConcurrencyStrategy stockConcurrencyStrategy, OrderMapper orderMapper,
+                                  ProductReferenceCache productReferenceCache, NotificationPublisher notificationPublisher,
+                                  StockMetrics stockMetrics, OrderProcessingProperties properties,
+                                  OrderTracer orderTracer, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.productProcessorRegistry = productProcessorRegistry;
+        this.stockConcurrencyStrategy = stockConcurrencyStrategy;
+        this.orderMapper = orderMapper;
+        this.productReferenceCache = productReferenceCache;
+        this.notificationPublisher = notificationPublisher;
+        this.stockMetrics = stockMetrics;
+        this.properties = properties;
+        this.orderTracer = orderTracer;
+        for (OrderProcessingStatus status : OrderProcessingStatus.values()) {
+            processTimers.put(status, Timer.builder(PROCESS_TIMER)
+                    .description("Time spent processing an order, from its lookup to the response")
+                    .tag("outcome", status.name())
+                    .register(meterRegistry));
+        }
+    }
 
     @Transactional
     public OrderDto processOrder(Long orderId) {
-        log.info("processing order with id: {}", orderId);
-        Order order = findOrderById(orderId);
-        processOrderItems(order.getItems());
-        log.info("order with id: {} processed", order);
+        log.debug("processing order with id: {}", orderId);
+        long startNanos = System.nanoTime();
+        OrderTrace trace = orderTracer.start(orderId);
+        OrderProcessingStatus outcome = OrderProcessingStatus.FAILED;
+        try {
+            Order order = findOrderById(orderId);
+            trace.endStep(OrderTrace.Step.LOAD);
+            OrderDto orderDto = processLoadedOrder(order, trace);
+            outcome = OrderProcessingStatus.PROCESSED;
+            return orderDto;
+        } catch (OrderNotFoundException e) {
+            outcome = OrderProcessingStatus.NOT_FOUND;
+            throw e;
+        } finally {
+            record(outcome, startNanos);
+            orderTracer.finish(trace, outcome);
+        }
+    }
+
+    /**
+     * Processes an order already loaded with its items, within the caller's transaction
+     * @param order
+     * @return
+     */
+    public OrderDto processOrder(Order order) {
+        long startNanos = System.nanoTime();
+        OrderTrace trace = orderTracer.start(order.getId());
+        OrderProcessingStatus outcome = OrderProcessingStatus.FAILED;
+        try {
+            OrderDto orderDto = processLoadedOrder(order, trace);
+            outcome = OrderProcessingStatus.PROCESSED;
+            return orderDto;
+        } finally {
+            record(outcome, startNanos);
+            orderTracer.finish(trace, outcome);
+        }
+    }
+
+    private OrderDto processLoadedOrder(Order order, OrderTrace trace) {
+        processOrderItems(order.getItems(), trace);
+        log.debug("order with id: {} processed", order.getId());
         return orderMapper.toDto(order);
     }
 
-    private Order findOrderById(Long orderId) {
-        return orderRepository.findById(orderId)
+    private void record(OrderProcessingStatus outcome, long startNanos) {
+        processTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Loads the order with its items, the reference data of the products coming from the cache when it is enabled
+     * @throws OrderNotFoundException
+     */
+    public Order findOrderById(Long orderId) {
+        if (productReferenceCache.isEnabled()) {
+            return findOrderWithCachedProducts(orderId);
+        }
+        return orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
     }
 
-    private void processOrderItems(Set<Product> products) {
-        products.forEach(this::processProduct);
+    /**
+     * Reads only the stock of the items, and builds detached products from it and the cached reference data
+     */
+    private Order findOrderWithCachedProducts(Long orderId) {
+        List<OrderItemStockLevel> stockLevels = orderRepository.findItemStockLevelsById(orderId);
+        if (stockLevels.isEmpty()) {
+            throw new OrderNotFoundException(orderId);
+        }
+        List<OrderItemStockLevel> items = stockLevels.stream()
+                .filter(stockLevel -> stockLevel.getId() != null)
+                .collect(Collectors.toList());
+        return new Order(orderId, new HashSet<>(productReferenceCache.products(items)));
+    }
+
+    /**
+     * Items are processed in product id order, so that concurrent orders lock shared product rows in the same sequence
+     * @param products
+     */
+    private void processOrderItems(Set<Product> products, OrderTrace trace) {
+        List<Product> sortedProducts = products.stream()
+                .sorted(Comparator.comparing(Product::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+        trace.items(sortedProducts.size());
+        stockConcurrencyStrategy.prepare(sortedProducts);
+        trace.endStep(OrderTrace.Step.PREPARE);
+        LocalDate today = LocalDate.now();
+        List<ProductDecision> decisions = decide(sortedProducts, today, trace);
+        trace.endStep(OrderTrace.Step.DECIDE);
+        Set<Product> soldOut = Collections.newSetFromMap(new IdentityHashMap<>());
+        soldOut.addAll(stockConcurrencyStrategy.apply(decisions));
+        trace.endStep(OrderTrace.Step.APPLY);
+        notificationPublisher.publishAll(notifications(decisions, soldOut, today, trace));
+        trace.endStep(OrderTrace.Step.PUBLISH);
     }
 
-    private void processProduct(Product product) {
-        log.debug("processing product with id: {}", product.getId());
-        ProductType productType = product.getType();
-        ProductService processor = findProcessorForProduct(productType);
-        processor.processProduct(product);
-        log.debug("product with id: {} processed", product.getId());
+    /**
+     * Side-effect free, run on the common fork/join pool from {@code orders.processing.parallel-decision-threshold} items
+     */
+    private List<ProductDecision> decide(List<Product> products, LocalDate today, OrderTrace trace) {
+        IntStream indexes = IntStream.range(0, products.size());
+        if (products.size() >= properties.getParallelDecisionThreshold()) {
+            indexes = indexes.parallel();
+        }
+        return indexes.mapToObj(index -> {
+            long startNanos = trace.now();
+            ProductDecision decision = productProcessorRegistry.decide(products.get(index), today);
+            trace.decided(index, decision, trace.now() - startNanos);
+            return decision;
+        }).collect(Collectors.toList());
     }
 
-    private ProductService findProcessorForProduct(ProductType productType) {
-        return productServices.stream()
-                .filter(processor -> processor.supports(productType))
-                .findFirst()
-                .orElseThrow(() -> new ProductProcessorNotFoundException(productType));
+    /**
+     * The notifications decided, the sold-out items being decided again now that they are seen with an empty stock
+     */
+    private List<Notification> notifications(List<ProductDecision> decisions, Set<Product> soldOut, LocalDate today,
+                                             OrderTrace trace) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int index = 0; index < decisions.size(); index++) {
+            ProductDecision decision = decisions.get(index);
+            Product product = decision.product();
+            ProductDecision applied = decision;
+            if (decision.stockMutation() == StockMutation.DECREMENT && soldOut.contains(product)) {
+                stockMetrics.soldOut(product.getType());
+                applied = productProcessorRegistry.decide(product, today);
+                trace.soldOut(index, applied);
+            } else if (decision.stockMutation() == StockMutation.DECREMENT) {
+                stockMetrics.decremented(product.getType());
+            }
+            if (applied.notification() != null) {
+                notifications.add(applied.notification());
+            }
+        }
+        return notifications;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
+
+/**
+ * Outcome of the business rules for one order item: the stock change to apply and the notification to send, if any
+ */
+public record ProductDecision(Product product, StockMutation stockMutation, Notification notification) {
+
+    public static ProductDecision decrement(Product product) {
+        return new ProductDecision(product, StockMutation.DECREMENT, null);
+    }
+
+    public static ProductDecision notify(Product product, Notification notification) {
+        return new ProductDecision(product, StockMutation.NONE, notification);
+    }
+
+    public static ProductDecision clear(Product product, Notification notification) {
+        return new ProductDecision(product, StockMutation.CLEAR, notification);
+    }
+}
@@ -0,0 +1,137 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.ProductLifecycleProperties;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductLifecycleCandidate;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Empties the stock of the products that expired or whose season ended, once a day rather than inside orders.
+ * <p>
+ * Products still holding stock are read in id order, {@code products.lifecycle.batch-size} at a time. Each batch is
+ * cleared in one go, in its own transaction so that row locks stay short, and only the products this sweep emptied
+ * are notified and counted: a product emptied meanwhile by an order or another instance's sweep is left out.
+ * Order processing keeps its date checks, but only has stock to clear for products going stale between the rollover
+ * and the sweep.
+ */
+@Component
+@ConditionalOnProperty(prefix = "products.lifecycle", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ProductLifecycleSweeper {
+
+    private final ProductRepository productRepository;
+    private final StockConcurrencyStrategy stockConcurrencyStrategy;
+    private final NotificationPublisher notificationPublisher;
+    private final ProductLifecycleProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer sweepTimer;
+    private final Map<ProductType, Counter> cleared = new EnumMap<>(ProductType.class);
+
+    public ProductLifecycleSweeper(ProductRepository productRepository, StockConcurrencyStrategy stockConcurrencyStrategy,
+                                   NotificationPublisher notificationPublisher, ProductLifecycleProperties properties,
+                                   TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.stockConcurrencyStrategy = stockConcurrencyStrategy;
+        this.notificationPublisher = notificationPublisher;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.sweepTimer = Timer.builder("products.lifecycle.sweep")
+                .description("Time spent clearing the stock of expired and out-of-season products")
+                .register(meterRegistry);
+        for (ProductType type : List.of(ProductType.EXPIRABLE, ProductType.SEASONAL)) {
+            cleared.put(type, Counter.builder("products.lifecycle.cleared")
+                    .description("Products whose stock was cleared by the lifecycle sweep")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        if (properties.isSweepOnStartup()) {
+            sweep();
+        }
+    }
+
+    @Scheduled(cron = "${products.lifecycle.cron:0 0 0 * * *}")
+    public void sweep() {
+        try {
+            sweep(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.error("product lifecycle sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the number of products whose stock was cleared
+     */
+    public int sweep(LocalDate today) {
+        return sweepTimer.record(() -> {
+            int expired = sweep(ProductType.EXPIRABLE, productRepository::findExpiredWithStock, today,
+                    product -> Notification.expiration(product.getName(), product.getExpiryDate()));
+            int seasonEnded = sweep(ProductType.SEASONAL, productRepository::findSeasonEndedWithStock, today,
+                    product -> Notification.outOfStock(product.getName()));
+            log.info("product lifecycle sweep for {}: {} expired, {} out of season", today, expired, seasonEnded);
+            return expired + seasonEnded;
+        });
+    }
+
+    private int sweep(ProductType type, CandidateQuery query, LocalDate today,
+                      Function<ProductLifecycleCandidate, Notification> notification) {
+        Pageable batch = PageRequest.of(0, properties.getBatchSize());
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            SweptBatch swept = transactionTemplate.execute(status -> {
+                List<ProductLifecycleCandidate> found = query.apply(today, from, batch);
+                if (found.isEmpty()) {
+                    return null;
+                }
+                Set<Long> clearedIds = new HashSet<>(stockConcurrencyStrategy.clearAll(found));
+                notificationPublisher.publishAll(found.stream()
+                        .filter(candidate -> clearedIds.contains(candidate.getId()))
+                        .map(notification)
+                        .collect(Collectors.toList()));
+                return new SweptBatch(found.get(found.size() - 1).getId(), clearedIds.size());
+            });
+            if (swept == null) {
+                return total;
+            }
+            total += swept.cleared();
+            cleared.get(type).increment(swept.cleared());
+            afterId = swept.lastId();
+        }
+    }
+
+    @FunctionalInterface
+    private interface CandidateQuery {
+        List<ProductLifecycleCandidate> apply(LocalDate today, Long afterId, Pageable page);
+    }
+
+    private record SweptBatch(long lastId, int cleared) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.exceptions.ProductProcessorNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the {@link ProductService} of each {@link ProductType}.
+ * The lookup table is built once at startup: a type without processor, or with more than one, fails the context.
+ */
+@Component
+@Slf4j
+public class ProductProcessorRegistry {
+
+    static final String PROCESSING_TIMER = "orders.products.processing";
+
+    private final Map<ProductType, ProductService> processors;
+    private final Map<ProductType, Timer> timers;
+
+    public ProductProcessorRegistry(List<ProductService> productServices, MeterRegistry meterRegistry) {
+        this.processors = buildProcessors(productServices);
+        this.timers = buildTimers(meterRegistry);
+    }
+
+    public ProductService processorFor(ProductType productType) {
+        ProductService processor = productType == null ? null : processors.get(productType);
+        if (processor == null) {
+            throw new ProductProcessorNotFoundException(productType);
+        }
+        return processor;
+    }
+
+    public ProductDecision decide(Product product, LocalDate today) {
+        ProductType productType = product.getType();
+        ProductService processor = processorFor(productType);
+        return timers.get(productType).record(() -> processor.decide(product, today));
+    }
+
+    private static Map<ProductType, ProductService> buildProcessors(List<ProductService> productServices) {
+        Map<ProductType, ProductService> processors = new EnumMap<>(ProductType.class);
+        for (ProductType productType : ProductType.values()) {
+            for (ProductService productService : productServices) {
+                if (!productService.supports(productType)) {
+                    continue;
+                }
+                ProductService previous = processors.putIfAbsent(productType, productService);
+                if (previous != null) {
+                    throw new IllegalStateException("Several processors found for product type " + productType + ": "
+                            + previous.getClass().getSimpleName() + ", " + productService.getClass().getSimpleName());
+                }
+            }
+            if (!processors.containsKey(productType)) {
+                throw new ProductProcessorNotFoundException(productType);
+            }
+            log.debug("product type {} processed by {}", productType, processors.get(productType).getClass().getSimpleName());
+        }
+        return processors;
+    }
+
+    private static Map<ProductType, Timer> buildTimers(MeterRegistry meterRegistry) {
+        Map<ProductType, Timer> timers = new EnumMap<>(ProductType.class);
+        for (ProductType productType : ProductType.values()) {
+            timers.put(productType, Timer.builder(PROCESSING_TIMER)
+                    .description("Time spent applying the business rules to one order item, per product type")
+                    .tag("type", productType.name())
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+}
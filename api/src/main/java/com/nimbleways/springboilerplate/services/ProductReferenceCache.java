@@ -0,0 +1,304 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.ProductCacheProperties;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductCatalogChange;
+import com.nimbleways.springboilerplate.repositories.ProductCatalogChangeRepository;
+import com.nimbleways.springboilerplate.repositories.ProductReference;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of the product reference data, that is everything but the stock, which orders read fresh.
+ * <p>
+ * Products are evicted least recently used first. The most ordered products are loaded at startup. Writers of
+ * reference data record the products they change in the {@code product_catalog_changes} table, in their own
+ * transaction; every instance polls that table every {@code products.cache.poll-interval} and evicts the products
+ * listed. Every change is applied once: an id missing between the changes read is watched for
+ * {@link #COMMIT_GRACE_NANOS}, in case its transaction has not committed yet, and applied if it shows up in that time;
+ * after that it is considered rolled back. Only the changes not applied yet evict products.
+ * <p>
+ * Products are loaded outside of the lock. Every eviction moves the invalidation generation forward, and a load only
+ * fills the cache when no eviction happened since it started: a reference read before a change committed is never put
+ * back after the change has been evicted.
+ */
+@Service
+@Slf4j
+public class ProductReferenceCache {
+
+    static final long COMMIT_GRACE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int POLL_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogChangeRepository changeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheProperties properties;
+    private final LongSupplier nanoTime;
+    private final Map<Long, ProductReference> references;
+    private final ScheduledExecutorService poller;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    private long generation;
+    private long appliedChangeId;
+    private long seenChangeId;
+    private final NavigableMap<Long, Long> missingSince = new TreeMap<>();
+    private long lastPollNanos;
+    private long lastPruneNanos;
+
+    @Autowired
+    public ProductReferenceCache(ProductRepository productRepository, ProductCatalogChangeRepository changeRepository,
+                                 TransactionTemplate transactionTemplate, ProductCacheProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this(productRepository, changeRepository, transactionTemplate, properties, meterRegistry, System::nanoTime);
+    }
+
+    ProductReferenceCache(ProductRepository productRepository, ProductCatalogChangeRepository changeRepository,
+                          TransactionTemplate transactionTemplate, ProductCacheProperties properties,
+                          MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.productRepository = productRepository;
+        this.changeRepository = changeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.references = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProductReference> eldest) {
+                return size() > properties.getMaxSize();
+            }
+        };
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-cache-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("products.cache.size", this, ProductReferenceCache::size)
+                .description("Products held in the reference data cache")
+                .register(meterRegistry);
+        this.hits = Counter.builder("products.cache.gets")
+                .description("Product reference data lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("products.cache.gets")
+                .description("Product reference data lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("products.cache.invalidations")
+                .description("Products evicted because their reference data changed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        appliedChangeId = changeRepository.findLastId();
+        seenChangeId = appliedChangeId;
+        lastPollNanos = nanoTime.getAsLong();
+        lastPruneNanos = lastPollNanos;
+        warmUp();
+        long period = properties.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(this::pollQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Combines the stock read by the caller with the cached reference data, loading the missing products in one query
+     * @return detached products, in the order of the stock levels
+     */
+    public List<Product> products(List<? extends ProductStockLevel> stockLevels) {
+        Map<Long, ProductReference> found = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (references) {
+            loadGeneration = generation;
+            for (ProductStockLevel stockLevel : stockLevels) {
+                ProductReference reference = references.get(stockLevel.getId());
+                if (reference == null) {
+                    missing.add(stockLevel.getId());
+                } else {
+                    found.put(stockLevel.getId(), reference);
+                }
+            }
+        }
+        hits.increment(found.size());
+        misses.increment(missing.size());
+        if (!missing.isEmpty()) {
+            List<ProductReference> loaded = productRepository.findReferencesByIdIn(missing);
+            loaded.forEach(reference -> found.put(reference.id(), reference));
+            put(loaded, loadGeneration);
+        }
+        List<Product> products = new ArrayList<>(stockLevels.size());
+        for (ProductStockLevel stockLevel : stockLevels) {
+            ProductReference reference = found.get(stockLevel.getId());
+            if (reference != null) {
+                products.add(reference.toProduct(stockLevel));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Records, in the caller's transaction, that the reference data of the products changed, so that every instance
+     * evicts them
+     */
+    public void recordChanges(Collection<Long> productIds) {
+        Instant now = Instant.now();
+        changeRepository.saveAll(productIds.stream()
+                .map(productId -> new ProductCatalogChange(null, productId, now))
+                .collect(Collectors.toList()));
+        invalidate(productIds);
+    }
+
+    void poll() {
+        long now = nanoTime.getAsLong();
+        if (now - lastPollNanos > properties.getChangeRetention().toNanos()) {
+            log.warn("product change log not read for longer than its retention, clearing the product cache");
+            clear();
+        }
+        long afterId = appliedChangeId;
+        List<ProductCatalogChange> changes;
+        do {
+            changes = changeRepository.findChangesAfter(afterId, PageRequest.of(0, POLL_BATCH_SIZE));
+            invalidate(unapplied(changes, now));
+            if (!changes.isEmpty()) {
+                afterId = changes.get(changes.size() - 1).getId();
+            }
+        } while (changes.size() == POLL_BATCH_SIZE);
+        advance(now);
+        lastPollNanos = now;
+        if (now - lastPruneNanos >= properties.getChangeRetention().toNanos() / 10) {
+            Instant before = Instant.now().minus(properties.getChangeRetention());
+            transactionTemplate.executeWithoutResult(status -> changeRepository.deleteChangedBefore(before));
+            lastPruneNanos = now;
+        }
+    }
+
+    /**
+     * Notes the ids missing before the changes read for the first time
+     * @return the products of the changes read for the first time, or committed late within a gap
+     */
+    private List<Long> unapplied(List<ProductCatalogChange> changes, long now) {
+        List<Long> productIds = new ArrayList<>();
+        for (ProductCatalogChange change : changes) {
+            long id = change.getId();
+            if (id > seenChangeId) {
+                for (long missing = seenChangeId + 1; missing < id; missing++) {
+                    missingSince.put(missing, now);
+                }
+                seenChangeId = id;
+                productIds.add(change.getProductId());
+            } else if (missingSince.remove(id) != null) {
+                productIds.add(change.getProductId());
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Gives up on the ids missing for longer than the grace period, and moves {@link #appliedChangeId} up to the first
+     * id still awaited, from which the next poll reads
+     */
+    private void advance(long now) {
+        missingSince.values().removeIf(since -> now - since >= COMMIT_GRACE_NANOS);
+        appliedChangeId = missingSince.isEmpty() ? seenChangeId : missingSince.firstKey() - 1;
+    }
+
+    int size() {
+        synchronized (references) {
+            return references.size();
+        }
+    }
+
+    private void warmUp() {
+        List<Long> productIds = productRepository.findMostOrderedIds(PageRequest.of(0, properties.getWarmUpSize()));
+        if (!productIds.isEmpty()) {
+            long loadGeneration;
+            synchronized (references) {
+                loadGeneration = generation;
+            }
+            put(productRepository.findReferencesByIdIn(productIds), loadGeneration);
+            log.info("product cache warmed up with {} products", productIds.size());
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.error("product change log poll failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param loadGeneration the invalidation generation read before loading the references
+     */
+    private void put(List<ProductReference> loaded, long loadGeneration) {
+        synchronized (references) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            loaded.forEach(reference -> references.put(reference.id(), reference));
+        }
+    }
+
+    private void invalidate(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        int evicted = 0;
+        synchronized (references) {
+            generation++;
+            for (Long productId : productIds) {
+                if (references.remove(productId) != null) {
+                    evicted++;
+                }
+            }
+        }
+        invalidations.increment(evicted);
+    }
+
+    private void clear() {
+        synchronized (references) {
+            generation++;
+            references.clear();
+        }
+    }
+}
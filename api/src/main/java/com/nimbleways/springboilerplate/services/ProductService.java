@@ -3,9 +3,19 @@ package com.nimbleways.springboilerplate.services;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
 
+import java.time.LocalDate;
+
 public interface ProductService {
 
-    void processProduct(Product product);
+    /**
+     * Applies the business rules of the product type, without side effects: the stock change and the notification are
+     * applied by the caller. When a decided decrement finds no unit left, the product is decided again, seen with an
+     * empty stock.
+     * @param product
+     * @param today the day the order is processed
+     * @return
+     */
+    ProductDecision decide(Product product, LocalDate today);
 
     boolean supports(ProductType type);
-}
\ No newline at end of file
+}
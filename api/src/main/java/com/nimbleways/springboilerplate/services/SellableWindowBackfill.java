@@ -0,0 +1,98 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.ProductLifecycleProperties;
+import com.nimbleways.springboilerplate.entities.SellableWindow;
+import com.nimbleways.springboilerplate.repositories.ProductDates;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in the sellable window of the products stored before it existed, or inserted without going through the
+ * entity. Products are read in id order, {@code products.lifecycle.batch-size} at a time, and each batch is written
+ * with one JDBC batch in its own transaction.
+ */
+@Component
+@Slf4j
+public class SellableWindowBackfill {
+
+    private static final String UPDATE_WINDOW_SQL = "update products set sellable_from = ?, sellable_until = ? where id = ?";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductLifecycleProperties properties;
+    private final Counter backfilled;
+
+    public SellableWindowBackfill(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate, ProductLifecycleProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.backfilled = Counter.builder("products.sellable.window.backfilled")
+                .description("Products whose sellable window was filled in by the backfill")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillOnStartup() {
+        if (properties.isBackfillOnStartup()) {
+            int filled = backfill();
+            if (filled > 0) {
+                log.info("filled in the sellable window of {} products", filled);
+            }
+        }
+    }
+
+    /**
+     * @return the number of products whose window was filled in
+     */
+    public int backfill() {
+        Pageable batch = PageRequest.of(0, properties.getBatchSize());
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<ProductDates> products = transactionTemplate.execute(status -> {
+                List<ProductDates> found = productRepository.findWithoutSellableWindow(from, batch);
+                if (!found.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_WINDOW_SQL, toBatchArgs(found));
+                }
+                return found;
+            });
+            if (products == null || products.isEmpty()) {
+                return total;
+            }
+            total += products.size();
+            backfilled.increment(products.size());
+            afterId = products.get(products.size() - 1).getId();
+        }
+    }
+
+    private static List<Object[]> toBatchArgs(List<ProductDates> products) {
+        List<Object[]> args = new ArrayList<>(products.size());
+        for (ProductDates product : products) {
+            SellableWindow window = SellableWindow.of(product.getType(), product.getExpiryDate(),
+                    product.getSeasonStartDate(), product.getSeasonEndDate());
+            args.add(new Object[]{Date.valueOf(window.from()), Date.valueOf(window.until()), product.getId()});
+        }
+        return args;
+    }
+}
@@ -0,0 +1,80 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the stock changes of order processing, so that concurrent orders on the same products neither lose
+ * updates nor oversell. The selected implementation is set by {@code stock.concurrency}.
+ */
+public interface StockConcurrencyStrategy {
+
+    /**
+     * Called once per chunk of orders processed in one transaction, before any of them, so that concurrent chunks
+     * lock the rows they write in the same sequence whatever the orders they hold
+     * @param productIds the products of all the orders of the chunk, distinct and sorted
+     */
+    default void lockAll(List<Long> productIds) {
+    }
+
+    /**
+     * Called once per order, before any of its products is processed
+     * @param products the order items, sorted by id
+     */
+    default void prepare(List<Product> products) {
+    }
+
+    /**
+     * Takes one unit of the product
+     * @param product
+     * @return false when no unit was left, in which case the product is seen with an empty stock
+     */
+    boolean decrement(Product product);
+
+    /**
+     * Empties the stock of the product
+     * @param product
+     */
+    void clear(Product product);
+
+    /**
+     * Applies the stock mutations decided for the items of an order, one product at a time unless overridden
+     * @param decisions the decisions of the order items, sorted by product id
+     * @return the products whose decrement found no unit left, seen with an empty stock
+     */
+    default List<Product> apply(List<ProductDecision> decisions) {
+        List<Product> soldOut = new ArrayList<>();
+        for (ProductDecision decision : decisions) {
+            switch (decision.stockMutation()) {
+                case DECREMENT:
+                    if (!decrement(decision.product())) {
+                        soldOut.add(decision.product());
+                    }
+                    break;
+                case CLEAR:
+                    clear(decision.product());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return soldOut;
+    }
+
+    /**
+     * Empties the stock of many products at once, outside of order processing
+     * @param stockLevels the products, with the stock read by the caller
+     * @return the ids of the products whose stock this call emptied, leaving out those found already empty
+     */
+    List<Long> clearAll(List<? extends ProductStockLevel> stockLevels);
+
+    /**
+     * Puts units back in stock, outside of order processing
+     * @param unitsByProductId the units to add, per product id
+     */
+    void restock(Map<Long, Integer> unitsByProductId);
+}
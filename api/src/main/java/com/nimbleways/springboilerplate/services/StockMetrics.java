@@ -0,0 +1,44 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.ProductType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counts the units taken by order processing, and the decrements that found no unit left
+ */
+@Component
+public class StockMetrics {
+
+    static final String DECREMENTS = "stock.decrements";
+
+    private final Map<ProductType, Counter> decremented = new EnumMap<>(ProductType.class);
+    private final Map<ProductType, Counter> soldOut = new EnumMap<>(ProductType.class);
+
+    public StockMetrics(MeterRegistry meterRegistry) {
+        for (ProductType productType : ProductType.values()) {
+            decremented.put(productType, counter(meterRegistry, productType, "decremented"));
+            soldOut.put(productType, counter(meterRegistry, productType, "sold_out"));
+        }
+    }
+
+    public void decremented(ProductType productType) {
+        decremented.get(productType).increment();
+    }
+
+    public void soldOut(ProductType productType) {
+        soldOut.get(productType).increment();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, ProductType productType, String outcome) {
+        return Counter.builder(DECREMENTS)
+                .description("Stock decrements of order items, per product type")
+                .tag("type", productType.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
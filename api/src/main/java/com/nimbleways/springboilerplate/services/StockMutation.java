@@ -0,0 +1,16 @@
+package com.nimbleways.springboilerplate.services;
+
+/**
+ * Stock change decided for an order item
+ */
+public enum StockMutation {
+    NONE,
+    /**
+     * takes one unit, unless none is left
+     */
+    DECREMENT,
+    /**
+     * empties the stock
+     */
+    CLEAR
+}
@@ -0,0 +1,201 @@
+package com.nimbleways.springboilerplate.services.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nimbleways.springboilerplate.config.ProductExportProperties;
+import com.nimbleways.springboilerplate.dto.product.ProductAvailability;
+import com.nimbleways.springboilerplate.dto.product.ProductExportFormat;
+import com.nimbleways.springboilerplate.dto.product.ProductExportRow;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes every product with its current stock to a stream, as NDJSON or CSV, without loading the catalog: rows are
+ * read in id order from a forward-only cursor, {@code products.export.fetch-size} per round trip, and written as they
+ * come, the output being flushed after each fetch. The cursor lives in a read-only transaction, which PostgreSQL
+ * needs to honour the fetch size. The type and availability filters are part of the query.
+ */
+@Service
+@Slf4j
+public class ProductExportService {
+
+    private static final String SELECT_SQL = "select p.id, p.name, p.type, p.lead_time, p.expiry_date, p.season_start_date,"
+            + " p.season_end_date, s.available,"
+            + " case when p.sellable_from <= ? and p.sellable_until >= ?"
+            + " then case when s.available > 0 then 'IN_STOCK' else 'OUT_OF_STOCK' end"
+            + " else 'NOT_SELLABLE' end as availability"
+            + " from products p join product_stock s on s.product_id = p.id";
+    private static final String CSV_HEADER = "id,name,type,lead_time,available,availability,expiry_date,"
+            + "season_start_date,season_end_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter rowWriter;
+    private final ProductExportProperties properties;
+    private final Clock clock;
+    private final Map<ProductExportFormat, Counter> exported = new EnumMap<>(ProductExportFormat.class);
+
+    @Autowired
+    public ProductExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper, ProductExportProperties properties,
+                                MeterRegistry meterRegistry) {
+        this(dataSource, transactionManager, objectMapper, properties, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    ProductExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper, ProductExportProperties properties,
+                         MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rowWriter = objectMapper.writerFor(ProductExportRow.class);
+        this.properties = properties;
+        this.clock = clock;
+        for (ProductExportFormat format : ProductExportFormat.values()) {
+            exported.put(format, Counter.builder("products.export.rows")
+                    .description("Product rows written by the export")
+                    .tag("format", format.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @param type only the products of that type, when given
+     * @param availability only the products with that availability today, when given
+     * @return the number of products written
+     * @throws IOException when the output can no longer be written, the cursor being closed
+     */
+    public long export(ProductExportFormat format, ProductType type, ProductAvailability availability,
+                       OutputStream output) throws IOException {
+        LocalDate today = LocalDate.now(clock);
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(today), Date.valueOf(today)));
+        String sql = SELECT_SQL + where(type, availability, today, args) + " order by p.id";
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == ProductExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        RowWriter rows = new RowWriter(format, writer);
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, rows, args.toArray()));
+        } catch (UncheckedIOException e) {
+            log.warn("product export interrupted after {} rows: {}", rows.count, e.getMessage());
+            throw e.getCause();
+        } finally {
+            exported.get(format).increment(rows.count);
+        }
+        writer.flush();
+        return rows.count;
+    }
+
+    private static String where(ProductType type, ProductAvailability availability, LocalDate today, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (type != null) {
+            conditions.add("p.type = ?");
+            args.add(type.name());
+        }
+        if (availability == ProductAvailability.NOT_SELLABLE) {
+            conditions.add("(p.sellable_from > ? or p.sellable_until < ?)");
+        } else if (availability != null) {
+            conditions.add("p.sellable_from <= ? and p.sellable_until >= ?");
+            conditions.add(availability == ProductAvailability.IN_STOCK ? "s.available > 0" : "s.available = 0");
+        }
+        if (availability != null) {
+            args.add(Date.valueOf(today));
+            args.add(Date.valueOf(today));
+        }
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static ProductType toType(String type) {
+        return type == null ? null : ProductType.valueOf(type);
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    private final class RowWriter implements RowCallbackHandler {
+
+        private final ProductExportFormat format;
+        private final Writer writer;
+        private long count;
+
+        private RowWriter(ProductExportFormat format, Writer writer) {
+            this.format = format;
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            ProductExportRow row = new ProductExportRow(
+                    resultSet.getLong("id"),
+                    resultSet.getString("name"),
+                    toType(resultSet.getString("type")),
+                    (Integer) resultSet.getObject("lead_time"),
+                    resultSet.getInt("available"),
+                    ProductAvailability.valueOf(resultSet.getString("availability")),
+                    toLocalDate(resultSet.getDate("expiry_date")),
+                    toLocalDate(resultSet.getDate("season_start_date")),
+                    toLocalDate(resultSet.getDate("season_end_date")));
+            try {
+                write(row);
+                count++;
+                if (count % properties.getFetchSize() == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void write(ProductExportRow row) throws IOException {
+            if (format == ProductExportFormat.NDJSON) {
+                writer.write(rowWriter.writeValueAsString(row));
+            } else {
+                writer.write(String.join(",", csv(row.id()), csv(row.name()), csv(row.type()), csv(row.leadTime()),
+                        csv(row.available()), csv(row.availability()), csv(row.expiryDate()),
+                        csv(row.seasonStartDate()), csv(row.seasonEndDate())));
+            }
+            writer.write('\n');
+        }
+    }
+}
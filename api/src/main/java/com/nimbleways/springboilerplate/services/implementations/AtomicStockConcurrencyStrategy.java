@@ -0,0 +1,105 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import com.nimbleways.springboilerplate.repositories.ProductStockRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import com.nimbleways.springboilerplate.services.StockMutation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decrements with a single conditional UPDATE: the database serializes concurrent decrements on the row,
+ * and the {@code available > 0} guard makes overselling impossible.
+ * The changes of an order are sent as one JDBC batch of that UPDATE, whose row counts tell the sold-out items;
+ * restocks are batched the same way.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock", name = "concurrency", havingValue = "ATOMIC", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AtomicStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private static final String APPLY_SQL = "update product_stock set available = case when ? then 0 else available - 1 end,"
+            + " version = version + 1 where product_id = ? and available > 0";
+    private static final String RESTOCK_SQL = "update product_stock set available = available + ?, version = version + 1"
+            + " where product_id = ?";
+
+    private final ProductStockRepository productStockRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean decrement(Product product) {
+        if (productStockRepository.decrementAvailable(product.getId()) == 0) {
+            product.setAvailable(0);
+            return false;
+        }
+        product.setAvailable(product.getAvailable() - 1);
+        return true;
+    }
+
+    @Override
+    public void clear(Product product) {
+        productStockRepository.clearAvailable(product.getId());
+        product.setAvailable(0);
+    }
+
+    @Override
+    public List<Product> apply(List<ProductDecision> decisions) {
+        List<ProductDecision> mutations = new ArrayList<>(decisions.size());
+        for (ProductDecision decision : decisions) {
+            if (decision.stockMutation() != StockMutation.NONE) {
+                mutations.add(decision);
+            }
+        }
+        if (mutations.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> arguments = new ArrayList<>(mutations.size());
+        for (ProductDecision mutation : mutations) {
+            arguments.add(new Object[]{mutation.stockMutation() == StockMutation.CLEAR, mutation.product().getId()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(APPLY_SQL, arguments);
+        List<Product> soldOut = new ArrayList<>();
+        for (int index = 0; index < mutations.size(); index++) {
+            Product product = mutations.get(index).product();
+            if (mutations.get(index).stockMutation() == StockMutation.CLEAR) {
+                product.setAvailable(0);
+            } else if (updated[index] == 0) {
+                product.setAvailable(0);
+                soldOut.add(product);
+            } else {
+                product.setAvailable(product.getAvailable() - 1);
+            }
+        }
+        return soldOut;
+    }
+
+    @Override
+    public void lockAll(List<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productStockRepository.lockStockLevelsOrderedById(productIds);
+        }
+    }
+
+    @Override
+    public List<Long> clearAll(List<? extends ProductStockLevel> stockLevels) {
+        return StockClearing.clearAll(jdbcTemplate, stockLevels);
+    }
+
+    @Override
+    public void restock(Map<Long, Integer> unitsByProductId) {
+        if (unitsByProductId.isEmpty()) {
+            return;
+        }
+        List<Object[]> arguments = new ArrayList<>(unitsByProductId.size());
+        unitsByProductId.forEach((productId, units) -> arguments.add(new Object[]{units, productId}));
+        jdbcTemplate.batchUpdate(RESTOCK_SQL, arguments);
+    }
+}
@@ -2,33 +2,26 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
 import com.nimbleways.springboilerplate.services.ProductService;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 
 @Component
-@RequiredArgsConstructor
-@Slf4j
 /*
  * RG: Les produits "EXPIRABLE" ont une date d'expiration.
  *  Ils peuvent être vendus normalement tant qu'ils n'ont pas expiré, mais ne sont plus disponibles une fois la date d'expiration passée
  */
 public class ExpirableProductServiceImpl implements ProductService {
 
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
-
     @Override
-    public void processProduct(Product product) {
-        if (isProductValid(product)) {
-            decrementStock(product);
-        } else {
-            handleExpiredProduct(product);
+    public ProductDecision decide(Product product, LocalDate today) {
+        if (isProductValid(product, today)) {
+            return ProductDecision.decrement(product);
         }
+        return handleExpiredProduct(product);
     }
 
     @Override
@@ -41,32 +34,24 @@ public class ExpirableProductServiceImpl implements ProductService {
      * @param product
      * @return
      */
-    private boolean isProductValid(Product product) {
-        return hasStock(product) && isNotExpired(product);
+    private boolean isProductValid(Product product, LocalDate today) {
+        return hasStock(product) && product.isSellableOn(today);
     }
 
     private boolean hasStock(Product product) {
         return product.getAvailable() > 0;
     }
 
-    private boolean isNotExpired(Product product) {
-        return product.getExpiryDate().isAfter(LocalDate.now());
-    }
-
-    private void decrementStock(Product product) {
-        product.setAvailable(product.getAvailable() - 1);
-        productRepository.save(product);
-        log.debug("product with id: {} decremented", product.getId());
-    }
-
     /**
      * envoie une notification pour alerter l'expiration du produit..
+     * Le stock des produits expirés est vidé par le balayage quotidien, il ne reste à vider que si le produit a expiré depuis
      * @param product
      */
-    private void handleExpiredProduct(Product product) {
-        notificationService.sendExpirationNotification(product.getName(), product.getExpiryDate());
-        product.setAvailable(0);
-        productRepository.save(product);
-        log.debug("product with id: {} expired", product.getId());
+    private ProductDecision handleExpiredProduct(Product product) {
+        Notification notification = Notification.expiration(product.getName(), product.getExpiryDate());
+        if (hasStock(product)) {
+            return ProductDecision.clear(product, notification);
+        }
+        return ProductDecision.notify(product, notification);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes stock in the in-memory {@link StockLedger} only; the database is updated by the ledger write-back.
+ * The products of an order see the ledger counts rather than the ones read from the database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock", name = "concurrency", havingValue = "LEDGER")
+@RequiredArgsConstructor
+public class LedgerStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private final StockLedger stockLedger;
+
+    @Override
+    public void prepare(List<Product> products) {
+        for (Product product : products) {
+            product.setAvailable(stockLedger.available(product.getId(), product.getAvailable()));
+        }
+    }
+
+    @Override
+    public boolean decrement(Product product) {
+        int remaining = stockLedger.decrement(product.getId(), product.getAvailable());
+        product.setAvailable(Math.max(remaining, 0));
+        return remaining >= 0;
+    }
+
+    @Override
+    public void clear(Product product) {
+        stockLedger.clear(product.getId(), product.getAvailable());
+        product.setAvailable(0);
+    }
+
+    @Override
+    public List<Long> clearAll(List<? extends ProductStockLevel> stockLevels) {
+        List<Long> cleared = new ArrayList<>(stockLevels.size());
+        for (ProductStockLevel stockLevel : stockLevels) {
+            if (stockLedger.clear(stockLevel.getId(), stockLevel.getAvailable()) > 0) {
+                cleared.add(stockLevel.getId());
+            }
+        }
+        return cleared;
+    }
+
+    @Override
+    public void restock(Map<Long, Integer> unitsByProductId) {
+        unitsByProductId.forEach(stockLedger::restock);
+    }
+}
@@ -2,29 +2,26 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
 import com.nimbleways.springboilerplate.services.ProductService;
-import lombok.RequiredArgsConstructor;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+
 @Component
-@RequiredArgsConstructor
 /*
  * RG: Les produits "NORMAL" ne présentent aucune particularité.
  *  Lorsqu'ils sont en rupture de stock, un délai est simplement annoncé aux clients.
  */
 public class NormalProductServiceImpl implements ProductService {
 
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
-
     @Override
-    public void processProduct(Product product) {
+    public ProductDecision decide(Product product, LocalDate today) {
         if (isProductAvailable(product)) {
-            decrementStock(product);
-        } else {
-            handleOutOfStock(product);
+            return ProductDecision.decrement(product);
         }
+        return handleOutOfStock(product);
     }
 
     @Override
@@ -36,13 +33,8 @@ public class NormalProductServiceImpl implements ProductService {
         return product.getAvailable() > 0;
     }
 
-    private void decrementStock(Product product) {
-        product.setAvailable(product.getAvailable() - 1);
-        productRepository.save(product);
-    }
-
-    private void handleOutOfStock(Product product) {
+    private ProductDecision handleOutOfStock(Product product) {
         int leadTime = product.getLeadTime();
-        notificationService.sendDelayNotification(leadTime, product.getName());
+        return ProductDecision.notify(product, Notification.delay(leadTime, product.getName()));
     }
-}
\ No newline at end of file
+}
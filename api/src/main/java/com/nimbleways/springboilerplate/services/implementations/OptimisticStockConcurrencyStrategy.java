@@ -0,0 +1,81 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.config.StockProperties;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.exceptions.StockConflictException;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import com.nimbleways.springboilerplate.repositories.ProductStockRepository;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the new stock only if the product version is still the one that was read.
+ * On conflict the stock level is read again and the write retried, up to {@code stock.optimistic.max-retries} times.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock", name = "concurrency", havingValue = "OPTIMISTIC")
+@RequiredArgsConstructor
+@Slf4j
+public class OptimisticStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private final ProductStockRepository productStockRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockProperties stockProperties;
+
+    @Override
+    public boolean decrement(Product product) {
+        return compareAndSet(product, true);
+    }
+
+    @Override
+    public void clear(Product product) {
+        compareAndSet(product, false);
+    }
+
+    @Override
+    public void lockAll(List<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productStockRepository.lockStockLevelsOrderedById(productIds);
+        }
+    }
+
+    @Override
+    public List<Long> clearAll(List<? extends ProductStockLevel> stockLevels) {
+        return StockClearing.clearAll(jdbcTemplate, stockLevels);
+    }
+
+    private boolean compareAndSet(Product product, boolean decrement) {
+        int available = product.getAvailable();
+        Long version = product.getVersion();
+        int maxRetries = stockProperties.getOptimistic().getMaxRetries();
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (decrement && available <= 0 || !decrement && available == 0) {
+                product.setAvailable(0);
+                return false;
+            }
+            int newAvailable = decrement ? available - 1 : 0;
+            if (productStockRepository.updateAvailable(product.getId(), newAvailable, version) == 1) {
+                product.setAvailable(newAvailable);
+                return true;
+            }
+            log.debug("version conflict on product with id: {}, attempt {}", product.getId(), attempt);
+            ProductStockLevel level = productStockRepository.findStockLevelById(product.getId())
+                    .orElseThrow(() -> new StockConflictException(product.getId()));
+            available = level.getAvailable();
+            version = level.getVersion();
+        }
+        throw new StockConflictException(product.getId());
+    }
+
+    @Override
+    public void restock(Map<Long, Integer> unitsByProductId) {
+        unitsByProductId.forEach(productStockRepository::incrementAvailable);
+    }
+}
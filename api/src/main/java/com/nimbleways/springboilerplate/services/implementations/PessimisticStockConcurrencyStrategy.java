@@ -0,0 +1,77 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import com.nimbleways.springboilerplate.repositories.ProductStockRepository;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Locks the rows of all the order items up front, in product id order, so that two orders sharing products always
+ * lock them in the same sequence and cannot deadlock. The locked stock levels replace the ones read with the order.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock", name = "concurrency", havingValue = "PESSIMISTIC")
+@RequiredArgsConstructor
+public class PessimisticStockConcurrencyStrategy implements StockConcurrencyStrategy {
+
+    private final ProductStockRepository productStockRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void prepare(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
+        Map<Long, ProductStockLevel> lockedLevels = productStockRepository.lockStockLevelsOrderedById(productIds).stream()
+                .collect(Collectors.toMap(ProductStockLevel::getId, Function.identity()));
+        for (Product product : products) {
+            ProductStockLevel level = lockedLevels.get(product.getId());
+            if (level != null) {
+                product.setAvailable(level.getAvailable());
+            }
+        }
+    }
+
+    @Override
+    public boolean decrement(Product product) {
+        if (product.getAvailable() <= 0 || productStockRepository.decrementAvailable(product.getId()) == 0) {
+            product.setAvailable(0);
+            return false;
+        }
+        product.setAvailable(product.getAvailable() - 1);
+        return true;
+    }
+
+    @Override
+    public void clear(Product product) {
+        productStockRepository.clearAvailable(product.getId());
+        product.setAvailable(0);
+    }
+
+    @Override
+    public void lockAll(List<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productStockRepository.lockStockLevelsOrderedById(productIds);
+        }
+    }
+
+    @Override
+    public List<Long> clearAll(List<? extends ProductStockLevel> stockLevels) {
+        return StockClearing.clearAll(jdbcTemplate, stockLevels);
+    }
+
+    @Override
+    public void restock(Map<Long, Integer> unitsByProductId) {
+        unitsByProductId.forEach(productStockRepository::incrementAvailable);
+    }
+}
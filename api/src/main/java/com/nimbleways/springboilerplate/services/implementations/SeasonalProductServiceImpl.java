@@ -2,15 +2,14 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
 import com.nimbleways.springboilerplate.services.ProductService;
-import lombok.RequiredArgsConstructor;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 
 @Component
-@RequiredArgsConstructor
 /*
  * RG: Les produits "SEASONAL" ne sont disponibles qu'à certaines périodes de l'année.
  *  Lorsqu'ils sont en rupture de stock, un délai est annoncé aux clients, mais si ce délai dépasse la saison de disponibilité, le produit est considéré comme non disponible.
@@ -18,16 +17,12 @@ import java.time.LocalDate;
  */
 public class SeasonalProductServiceImpl implements ProductService {
 
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
-
     @Override
-    public void processProduct(Product product) {
-        if (isProductAvailableInSeason(product)) {
-            decrementStock(product);
-        } else {
-            handleUnavailableProduct(product);
+    public ProductDecision decide(Product product, LocalDate today) {
+        if (isProductAvailableInSeason(product, today)) {
+            return ProductDecision.decrement(product);
         }
+        return handleUnavailableProduct(product, today);
     }
 
     @Override
@@ -40,39 +35,25 @@ public class SeasonalProductServiceImpl implements ProductService {
      * @param product
      * @return
      */
-    private boolean isProductAvailableInSeason(Product product) {
-        LocalDate now = LocalDate.now();
-        return isInSeason(product, now) && hasStock(product);
-    }
-
-    private boolean isInSeason(Product product, LocalDate date) {
-        return date.isAfter(product.getSeasonStartDate())
-                && date.isBefore(product.getSeasonEndDate());
+    private boolean isProductAvailableInSeason(Product product, LocalDate today) {
+        return hasStock(product) && product.isSellableOn(today);
     }
 
     private boolean hasStock(Product product) {
         return product.getAvailable() > 0;
     }
 
-    private void decrementStock(Product product) {
-        product.setAvailable(product.getAvailable() - 1);
-        productRepository.save(product);
-    }
-
-    private void handleUnavailableProduct(Product product) {
-        LocalDate now = LocalDate.now();
-        boolean isOutOfSeason = isBeforeSeason(product, now) || isAfterSeason(product, now);
+    private ProductDecision handleUnavailableProduct(Product product, LocalDate today) {
+        boolean isOutOfSeason = isBeforeSeason(product, today) || isAfterSeason(product, today);
 
         if (isOutOfSeason) {
-            notifyOutOfStock(product);
-            return;
+            return notifyOutOfStock(product);
         }
 
-        if (hasStock(product) && willBeAvailableBeforeSeasonEnds(product, now)) {
-            notifyDelay(product);
-        } else {
-            notifyOutOfStock(product);
+        if (hasStock(product) && willBeAvailableBeforeSeasonEnds(product, today)) {
+            return notifyDelay(product);
         }
+        return notifyOutOfStock(product);
     }
 
     private boolean isBeforeSeason(Product product, LocalDate date) {
@@ -89,13 +70,18 @@ public class SeasonalProductServiceImpl implements ProductService {
                 || restockDate.isEqual(product.getSeasonEndDate());
     }
 
-    private void notifyDelay(Product product) {
-        notificationService.sendDelayNotification(product.getLeadTime(), product.getName());
+    private ProductDecision notifyDelay(Product product) {
+        return ProductDecision.notify(product, Notification.delay(product.getLeadTime(), product.getName()));
     }
 
-    private void notifyOutOfStock(Product product) {
-        notificationService.sendOutOfStockNotification(product.getName());
-        product.setAvailable(0);
-        productRepository.save(product);
+    /**
+     * Le stock des produits dont la saison est terminée est vidé par le balayage quotidien, il ne reste à vider qu'avant la saison ou si elle s'est terminée depuis
+     */
+    private ProductDecision notifyOutOfStock(Product product) {
+        Notification notification = Notification.outOfStock(product.getName());
+        if (hasStock(product)) {
+            return ProductDecision.clear(product, notification);
+        }
+        return ProductDecision.notify(product, notification);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Clears the stock of many products as one JDBC batch of a guarded UPDATE, shared by the strategies writing to the
+ * database. The row counts tell the products this batch cleared from those already emptied by someone else.
+ */
+final class StockClearing {
+
+    private static final String CLEAR_SQL = "update product_stock set available = 0, version = version + 1"
+            + " where product_id = ? and available > 0";
+
+    private StockClearing() {
+    }
+
+    static List<Long> clearAll(JdbcTemplate jdbcTemplate, List<? extends ProductStockLevel> stockLevels) {
+        if (stockLevels.isEmpty()) {
+            return List.of();
+        }
+        List<Long> productIds = stockLevels.stream().map(ProductStockLevel::getId).collect(Collectors.toList());
+        int[] updated = jdbcTemplate.batchUpdate(CLEAR_SQL, productIds.stream()
+                .map(productId -> new Object[]{productId})
+                .collect(Collectors.toList()));
+        List<Long> cleared = new ArrayList<>(productIds.size());
+        for (int index = 0; index < updated.length; index++) {
+            if (updated[index] == 1) {
+                cleared.add(productIds.get(index));
+            }
+        }
+        return cleared;
+    }
+}
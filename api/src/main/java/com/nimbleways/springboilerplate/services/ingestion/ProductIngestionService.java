@@ -0,0 +1,293 @@
+package com.nimbleways.springboilerplate.services.ingestion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nimbleways.springboilerplate.config.ProductIngestionProperties;
+import com.nimbleways.springboilerplate.dto.product.IngestionLineError;
+import com.nimbleways.springboilerplate.dto.product.ProductImportRecord;
+import com.nimbleways.springboilerplate.dto.product.ProductIngestionResponse;
+import com.nimbleways.springboilerplate.dto.product.ProductRestockRecord;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.SellableWindow;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductReferenceCache;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Loads products and restocks them from NDJSON bodies, one JSON record per line, read as they arrive.
+ * <p>
+ * Valid records are written {@code products.ingestion.batch-size} at a time, each batch in its own transaction: a
+ * failure only rejects the lines of its batch, the batches before it staying committed. Products with an id get their
+ * reference data updated with one JDBC batch, and recorded as changed for the product caches; products without one
+ * are inserted through the entity, whose pooled ids let Hibernate batch the inserts. Restocks go through the
+ * {@link StockConcurrencyStrategy}, in product id order.
+ */
+@Service
+@Slf4j
+public class ProductIngestionService {
+
+    private static final String UPDATE_PRODUCT_SQL = "update products set name = ?, type = ?, lead_time = ?, expiry_date = ?,"
+            + " season_start_date = ?, season_end_date = ?, sellable_from = ?, sellable_until = ? where id = ?";
+
+    private final ProductRepository productRepository;
+    private final ProductReferenceCache productReferenceCache;
+    private final StockConcurrencyStrategy stockConcurrencyStrategy;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ProductIngestionProperties properties;
+    private final Map<IngestionKind, Counter> accepted = new EnumMap<>(IngestionKind.class);
+    private final Map<IngestionKind, Counter> rejected = new EnumMap<>(IngestionKind.class);
+
+    public ProductIngestionService(ProductRepository productRepository, ProductReferenceCache productReferenceCache,
+                                   StockConcurrencyStrategy stockConcurrencyStrategy, JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate, EntityManager entityManager,
+                                   ObjectMapper objectMapper, Validator validator,
+                                   ProductIngestionProperties properties, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.productReferenceCache = productReferenceCache;
+        this.stockConcurrencyStrategy = stockConcurrencyStrategy;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = properties;
+        for (IngestionKind kind : IngestionKind.values()) {
+            accepted.put(kind, counter(meterRegistry, kind, "accepted"));
+            rejected.put(kind, counter(meterRegistry, kind, "rejected"));
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, IngestionKind kind, String outcome) {
+        return Counter.builder("products.ingestion.records")
+                .description("NDJSON product records read, by outcome")
+                .tag("kind", kind.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates or updates the products of the body, see {@link ProductImportRecord}
+     */
+    public ProductIngestionResponse importProducts(InputStream body) {
+        return ingest(body, IngestionKind.IMPORT, ProductImportRecord.class, this::writeImports);
+    }
+
+    /**
+     * Adds the units of the body to the stock, see {@link ProductRestockRecord}
+     */
+    public ProductIngestionResponse restock(InputStream body) {
+        return ingest(body, IngestionKind.RESTOCK, ProductRestockRecord.class, this::writeRestocks);
+    }
+
+    private <T> ProductIngestionResponse ingest(InputStream body, IngestionKind kind, Class<T> recordType,
+                                                BatchWriter<T> writer) {
+        ObjectReader reader = objectMapper.readerFor(recordType);
+        Report report = new Report(properties.getMaxReportedErrors());
+        List<Line<T>> batch = new ArrayList<>(properties.getBatchSize());
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long number = 0;
+            String text;
+            while ((text = lines.readLine()) != null) {
+                number++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                T record = parse(reader, number, text, report);
+                if (record != null) {
+                    batch.add(new Line<>(number, record));
+                }
+                if (batch.size() == properties.getBatchSize()) {
+                    write(batch, writer, report);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch, writer, report);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("products body could not be read", e);
+        } finally {
+            accepted.get(kind).increment(report.accepted);
+            rejected.get(kind).increment(report.rejected);
+        }
+        log.info("product {} done: {} records written, {} lines rejected", kind, report.accepted, report.rejected);
+        return report.toResponse();
+    }
+
+    private <T> T parse(ObjectReader reader, long number, String text, Report report) {
+        T record;
+        try {
+            record = reader.readValue(text);
+        } catch (JsonProcessingException e) {
+            report.reject(number, "malformed record: " + e.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            report.reject(number, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        return record;
+    }
+
+    private <T> void write(List<Line<T>> batch, BatchWriter<T> writer, Report report) {
+        List<IngestionLineError> errors;
+        try {
+            errors = transactionTemplate.execute(status -> writer.write(batch));
+        } catch (DataAccessException e) {
+            log.error("product batch of lines {} to {} failed: {}", batch.get(0).number(),
+                    batch.get(batch.size() - 1).number(), e.getMessage(), e);
+            String message = "batch rejected: " + e.getMostSpecificCause().getMessage();
+            batch.forEach(line -> report.reject(line.number(), message));
+            return;
+        }
+        errors.forEach(error -> report.reject(error.line(), error.message()));
+        report.accepted += batch.size() - errors.size();
+    }
+
+    private List<IngestionLineError> writeImports(List<Line<ProductImportRecord>> batch) {
+        List<IngestionLineError> errors = new ArrayList<>();
+        List<Line<ProductImportRecord>> updates = new ArrayList<>();
+        List<Product> creations = new ArrayList<>();
+        for (Line<ProductImportRecord> line : batch) {
+            if (line.record().id() == null) {
+                creations.add(line.record().toProduct());
+            } else {
+                updates.add(line);
+            }
+        }
+        if (!updates.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, toUpdateArgs(updates));
+            List<Long> changed = new ArrayList<>(updates.size());
+            for (int index = 0; index < updates.size(); index++) {
+                Line<ProductImportRecord> line = updates.get(index);
+                if (updated[index] == 0) {
+                    errors.add(unknownProduct(line.number(), line.record().id()));
+                } else {
+                    changed.add(line.record().id());
+                }
+            }
+            productReferenceCache.recordChanges(changed);
+        }
+        if (!creations.isEmpty()) {
+            productRepository.saveAllAndFlush(creations);
+            entityManager.clear();
+        }
+        return errors;
+    }
+
+    private List<IngestionLineError> writeRestocks(List<Line<ProductRestockRecord>> batch) {
+        Set<Long> known = new HashSet<>(productRepository.findIdsByIdIn(batch.stream()
+                .map(line -> line.record().id())
+                .collect(Collectors.toSet())));
+        List<IngestionLineError> errors = new ArrayList<>();
+        Map<Long, Integer> unitsByProductId = new TreeMap<>();
+        for (Line<ProductRestockRecord> line : batch) {
+            if (known.contains(line.record().id())) {
+                unitsByProductId.merge(line.record().id(), line.record().units(), Integer::sum);
+            } else {
+                errors.add(unknownProduct(line.number(), line.record().id()));
+            }
+        }
+        stockConcurrencyStrategy.restock(unitsByProductId);
+        return errors;
+    }
+
+    private static List<Object[]> toUpdateArgs(List<Line<ProductImportRecord>> updates) {
+        List<Object[]> args = new ArrayList<>(updates.size());
+        for (Line<ProductImportRecord> line : updates) {
+            ProductImportRecord record = line.record();
+            SellableWindow window = SellableWindow.of(record.type(), record.expiryDate(), record.seasonStartDate(),
+                    record.seasonEndDate());
+            args.add(new Object[]{record.name(), record.type().name(), record.leadTime(), toDate(record.expiryDate()),
+                    toDate(record.seasonStartDate()), toDate(record.seasonEndDate()), Date.valueOf(window.from()),
+                    Date.valueOf(window.until()), record.id()});
+        }
+        return args;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date == null ? null : Date.valueOf(date);
+    }
+
+    private static IngestionLineError unknownProduct(long number, Long productId) {
+        return new IngestionLineError(number, "unknown product " + productId);
+    }
+
+    enum IngestionKind {
+        IMPORT,
+        RESTOCK
+    }
+
+    private record Line<T>(long number, T record) {
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter<T> {
+
+        /**
+         * Writes the batch in the current transaction
+         * @return the lines of the batch that were not written
+         */
+        List<IngestionLineError> write(List<Line<T>> batch);
+    }
+
+    private static final class Report {
+
+        private final int maxReportedErrors;
+        private final List<IngestionLineError> errors = new ArrayList<>();
+        private long accepted;
+        private long rejected;
+
+        private Report(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new IngestionLineError(line, message));
+            }
+        }
+
+        private ProductIngestionResponse toResponse() {
+            errors.sort((first, second) -> Long.compare(first.line(), second.line()));
+            return new ProductIngestionResponse(accepted, rejected, List.copyOf(errors));
+        }
+    }
+}
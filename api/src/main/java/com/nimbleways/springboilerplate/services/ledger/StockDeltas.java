@@ -0,0 +1,44 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import java.util.Arrays;
+
+/**
+ * Net stock change per product, kept in parallel primitive arrays
+ */
+final class StockDeltas {
+
+    private long[] productIds;
+    private int[] deltas;
+    private int size;
+
+    StockDeltas(int initialCapacity) {
+        productIds = new long[Math.max(initialCapacity, 8)];
+        deltas = new int[productIds.length];
+    }
+
+    void add(long productId, int delta) {
+        if (size == productIds.length) {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            deltas = Arrays.copyOf(deltas, size * 2);
+        }
+        productIds[size] = productId;
+        deltas[size] = delta;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long productId(int index) {
+        return productIds[index];
+    }
+
+    int delta(int index) {
+        return deltas[index];
+    }
+}
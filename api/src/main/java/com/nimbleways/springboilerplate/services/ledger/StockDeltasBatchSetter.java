@@ -0,0 +1,27 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds {@code (delta, productId)} pairs to {@code available = available + ? ... where id = ?} statements
+ */
+@RequiredArgsConstructor
+class StockDeltasBatchSetter implements BatchPreparedStatementSetter {
+
+    private final StockDeltas deltas;
+
+    @Override
+    public void setValues(PreparedStatement statement, int index) throws SQLException {
+        statement.setInt(1, deltas.delta(index));
+        statement.setLong(2, deltas.productId(index));
+    }
+
+    @Override
+    public int getBatchSize() {
+        return deltas.size();
+    }
+}
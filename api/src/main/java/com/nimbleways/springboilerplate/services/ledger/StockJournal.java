@@ -0,0 +1,144 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only, memory-mapped log of stock changes.
+ * <p>
+ * Layout: a header holding a magic number and the journal epoch, then fixed-size records
+ * {@code [marker:int][delta:int][productId:long]}. The marker is written last, so a record torn by a crash is
+ * ignored on replay. Writes land in the page cache as soon as they are made: a process crash loses nothing,
+ * {@link #force()} additionally protects against an OS crash. Resetting the journal zeroes it and draws a new epoch.
+ */
+final class StockJournal implements Closeable {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+
+    private static final long MAGIC = 0x53544b4c45444752L;
+    private static final int RECORD_MARKER = 0x5354434b;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicInteger nextSlot = new AtomicInteger(HEADER_SIZE);
+    private volatile long epoch;
+
+    private StockJournal(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    static StockJournal open(Path path, int size) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int capacity = HEADER_SIZE + (Math.max(size, HEADER_SIZE + RECORD_SIZE) - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        int mappedSize = (int) Math.max(capacity, channel.size());
+        StockJournal journal = new StockJournal(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize), mappedSize);
+        journal.load();
+        return journal;
+    }
+
+    long epoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the end of the written records
+     */
+    int position() {
+        return Math.min(nextSlot.get(), capacity);
+    }
+
+    /**
+     * @return the offset of a free record, or -1 when the journal is full
+     */
+    int reserve() {
+        int slot = nextSlot.getAndAdd(RECORD_SIZE);
+        return slot + RECORD_SIZE <= capacity ? slot : -1;
+    }
+
+    void write(int slot, long productId, int delta) {
+        buffer.putLong(slot + 8, productId);
+        buffer.putInt(slot + 4, delta);
+        buffer.putInt(slot, RECORD_MARKER);
+    }
+
+    /**
+     * Sums the changes of the complete records written from {@code from}
+     */
+    Map<Long, Integer> replay(int from) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int slot = Math.max(from, HEADER_SIZE); slot + RECORD_SIZE <= capacity; slot += RECORD_SIZE) {
+            if (buffer.getInt(slot) == RECORD_MARKER) {
+                deltas.merge(buffer.getLong(slot + 8), buffer.getInt(slot + 4), Integer::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    /**
+     * Discards all records. Callers must make sure no write is in progress.
+     */
+    void reset() {
+        int end = position();
+        for (int offset = HEADER_SIZE; offset < end; offset += Long.BYTES) {
+            buffer.putLong(offset, 0L);
+        }
+        writeHeader(newEpoch());
+        nextSlot.set(HEADER_SIZE);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void load() {
+        if (buffer.getLong(0) != MAGIC) {
+            for (int offset = HEADER_SIZE; offset < capacity; offset += Long.BYTES) {
+                buffer.putLong(offset, 0L);
+            }
+            writeHeader(newEpoch());
+            return;
+        }
+        epoch = buffer.getLong(8);
+        int end = HEADER_SIZE;
+        for (int slot = HEADER_SIZE; slot + RECORD_SIZE <= capacity; slot += RECORD_SIZE) {
+            if (buffer.getInt(slot) == RECORD_MARKER) {
+                end = slot + RECORD_SIZE;
+            }
+        }
+        nextSlot.set(end);
+    }
+
+    private void writeHeader(long newEpoch) {
+        buffer.putLong(8, newEpoch);
+        buffer.putLong(0, MAGIC);
+        epoch = newEpoch;
+    }
+
+    private static long newEpoch() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+}
@@ -0,0 +1,296 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import com.nimbleways.springboilerplate.config.StockProperties;
+import com.nimbleways.springboilerplate.entities.StockLedgerCheckpoint;
+import com.nimbleways.springboilerplate.repositories.StockLedgerCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind stock ledger used by the {@code LEDGER} concurrency mode.
+ * <p>
+ * Available units live in a {@link StripedStockTable}, seeded from the products loaded with the orders. Every change
+ * is appended to a {@link StockJournal} before being acknowledged. A background flusher writes the changes, coalesced
+ * per product, to the product_stock table in one JDBC batch, together with the journal position they cover. On startup,
+ * the journal records past that position are replayed, so that changes acknowledged before a crash are not lost.
+ * <p>
+ * Changes are applied to the table right away, so that concurrent orders cannot take the same units, but they belong
+ * to the caller's transaction: when it rolls back, the opposite changes are applied and journaled, and replaying the
+ * journal nets them out.
+ * <p>
+ * The ledger owns the stock of the products it has loaded: it is meant for a single instance, and restocks made
+ * directly in the database are not seen until the next restart.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stock", name = "concurrency", havingValue = "LEDGER")
+@Slf4j
+public class StockLedger {
+
+    private static final String WRITE_BACK_SQL = "update product_stock set available = available + ?, version = version + 1 where product_id = ?";
+
+    private final StockLedgerCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockProperties.Ledger properties;
+    private final StripedStockTable table;
+    private final ReadWriteLock appendLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService flusher;
+    private final Timer flushTimer;
+    private final Counter writtenBackRows;
+    private final MeterRegistry meterRegistry;
+
+    private StockJournal journal;
+    private long checkpointEpoch;
+    private int checkpointPosition = -1;
+
+    public StockLedger(StockLedgerCheckpointRepository checkpointRepository, JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate, StockProperties stockProperties, MeterRegistry meterRegistry) {
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = stockProperties.getLedger();
+        this.table = new StripedStockTable(properties.getStripes());
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.meterRegistry = meterRegistry;
+        this.flushTimer = Timer.builder("stock.ledger.flush")
+                .description("Time spent writing the coalesced stock changes back to the database")
+                .register(meterRegistry);
+        this.writtenBackRows = Counter.builder("stock.ledger.written.rows")
+                .description("Product rows updated by the stock ledger write-back")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            journal = StockJournal.open(properties.getJournalPath(), (int) properties.getJournalSize().toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock ledger journal " + properties.getJournalPath(), e);
+        }
+        Gauge.builder("stock.ledger.journal.usage", this, ledger -> (double) ledger.journal.position() / properties.getJournalSize().toBytes())
+                .description("Fraction of the stock ledger journal in use")
+                .register(meterRegistry);
+        recover();
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(properties.getFlushInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+        flush();
+        journal.close();
+    }
+
+    /**
+     * @return the units available, {@code loadedAvailable} being used when the product is not known yet
+     */
+    public int available(long productId, int loadedAvailable) {
+        return table.seed(productId, loadedAvailable);
+    }
+
+    /**
+     * Takes one unit of the product
+     * @return the units left, or -1 when there was none to take
+     */
+    public int decrement(long productId, int loadedAvailable) {
+        return append(productId, loadedAvailable, Change.DECREMENT);
+    }
+
+    /**
+     * Removes all the units left of the product
+     * @return the units removed
+     */
+    public int clear(long productId, int loadedAvailable) {
+        return append(productId, loadedAvailable, Change.CLEAR);
+    }
+
+    /**
+     * Adds units to the product. A product the ledger has not loaded yet is updated in the database directly, in the
+     * caller's transaction, and loaded with the new stock by the next order.
+     */
+    public void restock(long productId, int units) {
+        if (append(productId, units, Change.RESTOCK) == StripedStockTable.ABSENT) {
+            jdbcTemplate.update(WRITE_BACK_SQL, units, productId);
+        }
+    }
+
+    /**
+     * Writes the pending changes back to the database
+     */
+    public synchronized void flush() {
+        StockDeltas deltas;
+        long epoch;
+        int position;
+        appendLock.writeLock().lock();
+        try {
+            deltas = table.drainPending();
+            epoch = journal.epoch();
+            position = journal.position();
+        } finally {
+            appendLock.writeLock().unlock();
+        }
+        if (deltas.isEmpty() && epoch == checkpointEpoch && position == checkpointPosition) {
+            return;
+        }
+        journal.force();
+        try {
+            flushTimer.record(() -> writeBack(deltas, epoch, position));
+        } catch (RuntimeException e) {
+            table.restorePending(deltas);
+            throw e;
+        }
+        checkpointEpoch = epoch;
+        checkpointPosition = position;
+        appendLock.writeLock().lock();
+        try {
+            if (journal.position() == position && position > StockJournal.HEADER_SIZE) {
+                journal.reset();
+            }
+        } finally {
+            appendLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param amount the units loaded with the product, the units added when restocking, or the opposite of a change being undone
+     * @return the units left after a decrement or {@link StripedStockTable#ABSENT} when there was none to take, the
+     * units removed by a clear, or {@link StripedStockTable#ABSENT} when restocking a product that was never loaded
+     */
+    private int append(long productId, int amount, Change change) {
+        while (true) {
+            appendLock.readLock().lock();
+            try {
+                int slot = journal.reserve();
+                if (slot >= 0) {
+                    int result;
+                    int delta;
+                    switch (change) {
+                        case DECREMENT:
+                            result = table.decrement(productId, amount);
+                            delta = result == StripedStockTable.ABSENT ? 0 : -1;
+                            break;
+                        case CLEAR:
+                            delta = table.clear(productId, amount);
+                            result = -delta;
+                            break;
+                        case UNDO:
+                            table.add(productId, amount);
+                            delta = amount;
+                            result = 0;
+                            break;
+                        default:
+                            result = table.add(productId, amount) ? 0 : StripedStockTable.ABSENT;
+                            delta = result == StripedStockTable.ABSENT ? 0 : amount;
+                            break;
+                    }
+                    journal.write(slot, productId, delta);
+                    if (change != Change.UNDO && delta != 0) {
+                        undoOnRollback(productId, delta);
+                    }
+                    return result;
+                }
+            } finally {
+                appendLock.readLock().unlock();
+            }
+            log.warn("stock ledger journal is full, flushing synchronously");
+            flush();
+        }
+    }
+
+    /**
+     * Remembers the change for the current transaction, if any, so that it can be undone if the transaction rolls back
+     */
+    private void undoOnRollback(long productId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        RollbackUndo undo = (RollbackUndo) TransactionSynchronizationManager.getResource(this);
+        if (undo == null) {
+            undo = new RollbackUndo();
+            TransactionSynchronizationManager.bindResource(this, undo);
+            TransactionSynchronizationManager.registerSynchronization(undo);
+        }
+        undo.deltas.add(productId, delta);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("stock ledger write-back failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private void recover() {
+        long epoch = journal.epoch();
+        int from = checkpointRepository.findById(StockLedgerCheckpoint.SINGLETON_ID)
+                .filter(checkpoint -> checkpoint.getJournalEpoch() == epoch)
+                .map(checkpoint -> checkpoint.getJournalPosition().intValue())
+                .orElse(StockJournal.HEADER_SIZE);
+        Map<Long, Integer> replayed = journal.replay(from);
+        if (!replayed.isEmpty()) {
+            StockDeltas deltas = new StockDeltas(replayed.size());
+            replayed.forEach(deltas::add);
+            writeBack(deltas, epoch, journal.position());
+            log.warn("stock ledger replayed unflushed changes of {} products", deltas.size());
+        }
+        journal.reset();
+    }
+
+    private void writeBack(StockDeltas deltas, long epoch, int position) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!deltas.isEmpty()) {
+                jdbcTemplate.batchUpdate(WRITE_BACK_SQL, new StockDeltasBatchSetter(deltas));
+                writtenBackRows.increment(deltas.size());
+            }
+            checkpointRepository.save(new StockLedgerCheckpoint(StockLedgerCheckpoint.SINGLETON_ID, epoch, (long) position));
+        });
+    }
+
+    private enum Change {
+        DECREMENT, CLEAR, RESTOCK, UNDO
+    }
+
+    private class RollbackUndo implements TransactionSynchronization {
+
+        private final StockDeltas deltas = new StockDeltas(8);
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockLedger.this);
+            if (status != STATUS_ROLLED_BACK) {
+                return;
+            }
+            for (int index = deltas.size() - 1; index >= 0; index--) {
+                append(deltas.productId(index), -deltas.delta(index), Change.UNDO);
+            }
+            log.info("stock ledger undid {} changes of a rolled back transaction", deltas.size());
+        }
+    }
+}
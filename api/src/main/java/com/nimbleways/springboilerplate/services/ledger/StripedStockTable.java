@@ -0,0 +1,209 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+/**
+ * Available units per product id, in open-addressing {@code long -> int} tables split into independently locked
+ * stripes. Each entry also accumulates the net change not yet written back to the database.
+ * Product ids are positive, so {@code 0} marks a free slot.
+ */
+final class StripedStockTable {
+
+    static final int ABSENT = -1;
+
+    private static final long FREE = 0L;
+    private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    StripedStockTable(int stripeCount) {
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new Stripe[count];
+        for (int index = 0; index < count; index++) {
+            stripes[index] = new Stripe();
+        }
+        stripeShift = Long.SIZE - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * @return the units available, or {@link #ABSENT} when the product was never loaded
+     */
+    int get(long productId) {
+        long hash = hash(productId);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(productId, hash);
+            return slot < 0 ? ABSENT : stripe.counts[slot];
+        }
+    }
+
+    /**
+     * Loads the product with {@code loadedAvailable} units unless it is already known
+     * @return the units available
+     */
+    int seed(long productId, int loadedAvailable) {
+        long hash = hash(productId);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.findOrInsert(productId, hash, loadedAvailable);
+            return stripe.counts[slot];
+        }
+    }
+
+    /**
+     * Takes one unit if any is left
+     * @return the units left after the decrement, or {@link #ABSENT} when there was none to take
+     */
+    int decrement(long productId, int loadedAvailable) {
+        long hash = hash(productId);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.findOrInsert(productId, hash, loadedAvailable);
+            if (stripe.counts[slot] <= 0) {
+                return ABSENT;
+            }
+            stripe.counts[slot]--;
+            stripe.pending[slot]--;
+            return stripe.counts[slot];
+        }
+    }
+
+    /**
+     * Removes all the units left
+     * @return the (negative or zero) change applied
+     */
+    int clear(long productId, int loadedAvailable) {
+        long hash = hash(productId);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.findOrInsert(productId, hash, loadedAvailable);
+            int delta = -stripe.counts[slot];
+            stripe.counts[slot] = 0;
+            stripe.pending[slot] += delta;
+            return delta;
+        }
+    }
+
+    /**
+     * Adds units to a product already loaded
+     * @return false when the product was never loaded, in which case nothing changed
+     */
+    boolean add(long productId, int units) {
+        long hash = hash(productId);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(productId, hash);
+            if (slot < 0) {
+                return false;
+            }
+            stripe.counts[slot] += units;
+            stripe.pending[slot] += units;
+            return true;
+        }
+    }
+
+    /**
+     * Collects and resets the changes not yet written back
+     */
+    StockDeltas drainPending() {
+        StockDeltas drained = new StockDeltas(64);
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int slot = 0; slot < stripe.keys.length; slot++) {
+                    if (stripe.keys[slot] != FREE && stripe.pending[slot] != 0) {
+                        drained.add(stripe.keys[slot], stripe.pending[slot]);
+                        stripe.pending[slot] = 0;
+                    }
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts back changes that could not be written back, so that the next drain retries them
+     */
+    void restorePending(StockDeltas deltas) {
+        for (int index = 0; index < deltas.size(); index++) {
+            long productId = deltas.productId(index);
+            long hash = hash(productId);
+            Stripe stripe = stripeOf(hash);
+            synchronized (stripe) {
+                int slot = stripe.find(productId, hash);
+                if (slot >= 0) {
+                    stripe.pending[slot] += deltas.delta(index);
+                }
+            }
+        }
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    private static long hash(long productId) {
+        long hash = productId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static final class Stripe {
+
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private int[] counts = new int[INITIAL_STRIPE_CAPACITY];
+        private int[] pending = new int[INITIAL_STRIPE_CAPACITY];
+        private int size;
+
+        private int find(long productId, long hash) {
+            int mask = keys.length - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == productId) {
+                    return slot;
+                }
+                if (keys[slot] == FREE) {
+                    return -1;
+                }
+            }
+        }
+
+        private int findOrInsert(long productId, long hash, int available) {
+            int slot = find(productId, hash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            slot = (int) hash & mask;
+            while (keys[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = productId;
+            counts[slot] = available;
+            pending[slot] = 0;
+            size++;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int[] oldPending = pending;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[keys.length];
+            pending = new int[keys.length];
+            int mask = keys.length - 1;
+            for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+                if (oldKeys[oldSlot] == FREE) {
+                    continue;
+                }
+                int slot = (int) hash(oldKeys[oldSlot]) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[oldSlot];
+                counts[slot] = oldCounts[oldSlot];
+                pending[slot] = oldPending[oldSlot];
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers notifications off the order processing thread.
+ * <p>
+ * Notifications published inside a transaction are held until it commits, and dropped if it rolls back, so that the
+ * order transaction neither waits for the notifier nor notifies about changes that never happened. Those let through
+ * by the {@link NotificationCoalescer} are then put on a bounded queue, drained in batches by a single worker thread.
+ * When the queue is full, the configured {@link NotificationProperties.OverflowPolicy} applies. A notification
+ * dropped or failing to be sent is withdrawn from the coalescer, so that the next occurrence gets through.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notifications", name = "delivery", havingValue = "ASYNC")
+@Slf4j
+public class AsyncNotificationDispatcher implements NotificationPublisher {
+
+    private final NotificationSender notificationSender;
+    private final NotificationCoalescer notificationCoalescer;
+    private final NotificationProperties.Async properties;
+    private final BlockingQueue<QueuedNotification> queue;
+    private final Thread worker;
+    private final Timer deliveryLag;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter dropped;
+
+    private volatile boolean running;
+
+    public AsyncNotificationDispatcher(NotificationSender notificationSender, NotificationCoalescer notificationCoalescer,
+                                       NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.notificationSender = notificationSender;
+        this.notificationCoalescer = notificationCoalescer;
+        this.properties = notificationProperties.getAsync();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.worker = new Thread(this::deliverUntilStopped, "notification-dispatcher");
+        this.worker.setDaemon(true);
+        Gauge.builder("notifications.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting for delivery")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("notifications.delivery.lag")
+                .description("Time between the commit of a notification and its delivery")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("notifications.delivered")
+                .description("Notifications sent through the notifier")
+                .register(meterRegistry);
+        this.failed = Counter.builder("notifications.failed")
+                .description("Attempts to send a notification that the notifier failed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notifications.dropped")
+                .description("Notifications discarded because the queue was full")
+                .tag("policy", properties.getOverflowPolicy().name())
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    /**
+     * Stops the worker and delivers what is left in the queue
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        List<QueuedNotification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        deliver(remaining);
+    }
+
+    @Override
+    public void publish(Notification notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(notification);
+            return;
+        }
+        AfterCommitNotifications pending = (AfterCommitNotifications) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new AfterCommitNotifications();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.notifications.add(notification);
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    private void enqueue(Notification notification) {
+        if (!notificationCoalescer.admit(notification)) {
+            return;
+        }
+        QueuedNotification queued = new QueuedNotification(notification, System.nanoTime());
+        switch (properties.getOverflowPolicy()) {
+            case DROP_NEWEST:
+                if (!queue.offer(queued)) {
+                    drop(notification);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(queued)) {
+                    QueuedNotification oldest = queue.poll();
+                    if (oldest != null) {
+                        drop(oldest.notification());
+                    }
+                }
+                break;
+            case CALLER_RUNS:
+                if (!queue.offer(queued)) {
+                    deliver(List.of(queued));
+                }
+                break;
+            default:
+                if (!offerWithTimeout(queued)) {
+                    drop(notification);
+                }
+        }
+    }
+
+    private boolean offerWithTimeout(QueuedNotification queued) {
+        try {
+            return queue.offer(queued, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drop(Notification notification) {
+        notificationCoalescer.withdraw(notification);
+        dropped.increment();
+        log.warn("notification queue is full, dropping {}", notification);
+    }
+
+    private void deliverUntilStopped() {
+        List<QueuedNotification> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, properties.getBatchSize() - 1);
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<QueuedNotification> batch) {
+        for (QueuedNotification queued : batch) {
+            try {
+                notificationSender.send(queued.notification());
+                delivered.increment();
+            } catch (RuntimeException e) {
+                notificationCoalescer.withdraw(queued.notification());
+                failed.increment();
+                log.error("notification delivery failed for {}: {}", queued.notification(), e.getMessage(), e);
+            }
+            deliveryLag.record(System.nanoTime() - queued.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private record QueuedNotification(Notification notification, long enqueuedNanos) {
+    }
+
+    private class AfterCommitNotifications implements TransactionSynchronization {
+
+        private final List<Notification> notifications = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AsyncNotificationDispatcher.this);
+            if (status == STATUS_COMMITTED) {
+                notifications.forEach(AsyncNotificationDispatcher.this::enqueue);
+            }
+        }
+    }
+}
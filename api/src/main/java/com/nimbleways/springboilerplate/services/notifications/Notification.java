@@ -0,0 +1,21 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import java.time.LocalDate;
+
+/**
+ * A customer notification about a product, decoupled from the moment it is delivered
+ */
+public record Notification(NotificationKind kind, String productName, Integer leadTime, LocalDate expiryDate) {
+
+    public static Notification delay(int leadTime, String productName) {
+        return new Notification(NotificationKind.DELAY, productName, leadTime, null);
+    }
+
+    public static Notification outOfStock(String productName) {
+        return new Notification(NotificationKind.OUT_OF_STOCK, productName, null, null);
+    }
+
+    public static Notification expiration(String productName, LocalDate expiryDate) {
+        return new Notification(NotificationKind.EXPIRATION, productName, null, expiryDate);
+    }
+}
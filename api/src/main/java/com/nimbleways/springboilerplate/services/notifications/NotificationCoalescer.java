@@ -0,0 +1,118 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets one notification per kind and product through per time window.
+ * <p>
+ * The first notification opens the window and is delivered right away, the identical ones that follow within the
+ * window are suppressed and counted. The occurrence count of a window is reported when it closes, that is when the
+ * same notification comes back after the window or when the window is evicted. Windows are kept in a bounded map
+ * evicting the least recently used product first.
+ */
+@Component
+@Slf4j
+public class NotificationCoalescer {
+
+    private final NotificationProperties.Coalescing properties;
+    private final LongSupplier nanoTime;
+    private final Map<WindowKey, Window> windows;
+    private final Counter suppressed;
+    private final DistributionSummary occurrences;
+
+    @Autowired
+    public NotificationCoalescer(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this(notificationProperties, meterRegistry, System::nanoTime);
+    }
+
+    NotificationCoalescer(NotificationProperties notificationProperties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = notificationProperties.getCoalescing();
+        this.nanoTime = nanoTime;
+        this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<WindowKey, Window> eldest) {
+                if (size() <= properties.getMaxWindows()) {
+                    return false;
+                }
+                close(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+        this.suppressed = Counter.builder("notifications.coalescing.suppressed")
+                .description("Duplicate notifications suppressed by the coalescing window")
+                .register(meterRegistry);
+        this.occurrences = DistributionSummary.builder("notifications.coalescing.occurrences")
+                .description("Occurrences of a notification within one coalescing window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the notification should be delivered
+     */
+    public boolean admit(Notification notification) {
+        Set<NotificationKind> kinds = properties.getKinds();
+        if (!properties.isEnabled() || !kinds.contains(notification.kind())) {
+            return true;
+        }
+        WindowKey key = new WindowKey(notification.kind(), notification.productName());
+        long now = nanoTime.getAsLong();
+        synchronized (windows) {
+            Window window = windows.get(key);
+            if (window != null && now - window.openedAt < properties.getWindow().toNanos()) {
+                window.occurrences++;
+                suppressed.increment();
+                return false;
+            }
+            if (window != null) {
+                close(key, window);
+            }
+            windows.put(key, new Window(now));
+            return true;
+        }
+    }
+
+    /**
+     * Drops the window opened by the notification, whose delivery failed, so that it is admitted again when retried
+     */
+    public void withdraw(Notification notification) {
+        if (!properties.isEnabled() || !properties.getKinds().contains(notification.kind())) {
+            return;
+        }
+        synchronized (windows) {
+            windows.remove(new WindowKey(notification.kind(), notification.productName()));
+        }
+    }
+
+    private void close(WindowKey key, Window window) {
+        occurrences.record(window.occurrences);
+        if (window.occurrences > 1) {
+            log.info("{} notification for {} coalesced {} occurrences", key.kind(), key.productName(), window.occurrences);
+        }
+    }
+
+    private record WindowKey(NotificationKind kind, String productName) {
+    }
+
+    private static final class Window {
+
+        private final long openedAt;
+        private long occurrences = 1;
+
+        private Window(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEntry;
+import com.nimbleways.springboilerplate.repositories.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays the notification outbox to the notifier.
+ * <p>
+ * Undelivered rows are read in id order, {@code notifications.outbox.batch-size} at a time, with keyset pagination
+ * from the last id relayed rather than offsets. A batch is locked, sent, and marked delivered with one bulk update in
+ * the same transaction, so that a crash re-sends the batch rather than losing it; rows locked by the relay of another
+ * instance are skipped where the database supports it. A failed delivery ends the batch: the rows from the failed one
+ * on are retried on the next poll, in order, the coalescing window the failed one opened being dropped so that its
+ * retry is sent. Rows delivered for longer than {@code notifications.outbox.retention} are purged in chunks, which
+ * keeps the table, and the relay scans, small under sustained load.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notifications", name = "delivery", havingValue = "OUTBOX", matchIfMissing = true)
+@Slf4j
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationSender notificationSender;
+    private final NotificationCoalescer notificationCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties.Outbox properties;
+    private final Clock clock;
+    private final ScheduledExecutorService relay;
+    private final Timer deliveryLag;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter purged;
+
+    @Autowired
+    public NotificationOutboxRelay(NotificationOutboxRepository notificationOutboxRepository,
+                                   NotificationSender notificationSender, NotificationCoalescer notificationCoalescer,
+                                   TransactionTemplate transactionTemplate, NotificationProperties notificationProperties,
+                                   MeterRegistry meterRegistry) {
+        this(notificationOutboxRepository, notificationSender, notificationCoalescer, transactionTemplate,
+                notificationProperties, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    NotificationOutboxRelay(NotificationOutboxRepository notificationOutboxRepository,
+                            NotificationSender notificationSender, NotificationCoalescer notificationCoalescer,
+                            TransactionTemplate transactionTemplate, NotificationProperties notificationProperties,
+                            MeterRegistry meterRegistry, Clock clock) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationSender = notificationSender;
+        this.notificationCoalescer = notificationCoalescer;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = notificationProperties.getOutbox();
+        this.clock = clock;
+        this.relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deliveryLag = Timer.builder("notifications.delivery.lag")
+                .description("Time between the commit of a notification and its delivery")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("notifications.delivered")
+                .description("Notifications sent through the notifier")
+                .register(meterRegistry);
+        this.failed = Counter.builder("notifications.failed")
+                .description("Attempts to send a notification that the notifier failed")
+                .register(meterRegistry);
+        this.purged = Counter.builder("notifications.outbox.purged")
+                .description("Delivered outbox rows deleted once past the retention")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long pollInterval = properties.getPollInterval().toMillis();
+        long purgeInterval = properties.getPurgeInterval().toMillis();
+        relay.scheduleWithFixedDelay(this::relayQuietly, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        relay.scheduleWithFixedDelay(this::purgeQuietly, purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the relay and delivers what is left in the outbox
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        relay.shutdown();
+        relay.awaitTermination(5, TimeUnit.SECONDS);
+        relayQuietly();
+    }
+
+    /**
+     * Relays the undelivered rows, batch after batch, until the outbox is drained or a delivery fails
+     * @return the rows marked delivered
+     */
+    public int relay() {
+        int relayed = 0;
+        long afterId = 0;
+        Batch batch;
+        do {
+            long lastId = afterId;
+            batch = transactionTemplate.execute(status -> relayBatch(lastId));
+            relayed += batch.delivered();
+            afterId = batch.lastDeliveredId();
+        } while (batch.complete() && batch.delivered() == properties.getBatchSize());
+        return relayed;
+    }
+
+    /**
+     * Deletes the rows delivered for longer than the retention
+     * @return the rows deleted
+     */
+    public int purge() {
+        Instant deliveredBefore = clock.instant().minus(properties.getRetention());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    notificationOutboxRepository.deleteDeliveredBefore(deliveredBefore, properties.getPurgeBatchSize()));
+            total += deleted;
+        } while (deleted == properties.getPurgeBatchSize());
+        purged.increment(total);
+        return total;
+    }
+
+    private Batch relayBatch(long afterId) {
+        List<NotificationOutboxEntry> entries = notificationOutboxRepository.lockUndeliveredAfter(afterId,
+                PageRequest.of(0, properties.getBatchSize()));
+        Instant now = clock.instant();
+        List<Long> deliveredIds = new ArrayList<>(entries.size());
+        boolean complete = true;
+        for (NotificationOutboxEntry entry : entries) {
+            Notification notification = entry.toNotification();
+            try {
+                if (notificationCoalescer.admit(notification)) {
+                    send(notification);
+                }
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("notification delivery failed for {}, will retry: {}", notification, e.getMessage(), e);
+                complete = false;
+                break;
+            }
+            deliveredIds.add(entry.getId());
+            delivered.increment();
+            deliveryLag.record(Duration.between(entry.getCreatedAt(), now));
+        }
+        if (!deliveredIds.isEmpty()) {
+            notificationOutboxRepository.markDelivered(deliveredIds, now);
+        }
+        long lastDeliveredId = deliveredIds.isEmpty() ? afterId : deliveredIds.get(deliveredIds.size() - 1);
+        return new Batch(deliveredIds.size(), lastDeliveredId, complete);
+    }
+
+    private void send(Notification notification) {
+        try {
+            notificationSender.send(notification);
+        } catch (RuntimeException e) {
+            notificationCoalescer.withdraw(notification);
+            throw e;
+        }
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            log.error("notification outbox relay failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            int deleted = purge();
+            if (deleted > 0) {
+                log.info("purged {} delivered notifications from the outbox", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("notification outbox purge failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private record Batch(int delivered, long lastDeliveredId, boolean complete) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import java.util.Collection;
+
+/**
+ * Entry point of the product services for customer notifications.
+ * The selected implementation is set by {@code notifications.delivery}.
+ */
+public interface NotificationPublisher {
+
+    void publish(Notification notification);
+
+    default void publishAll(Collection<Notification> notifications) {
+        notifications.forEach(this::publish);
+    }
+}
@@ -0,0 +1,51 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands notifications over to the {@link NotificationService}
+ */
+@Component
+public class NotificationSender {
+
+    private final NotificationService notificationService;
+    private final Map<NotificationKind, Counter> sent = new EnumMap<>(NotificationKind.class);
+
+    public NotificationSender(NotificationService notificationService, MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        for (NotificationKind kind : NotificationKind.values()) {
+            sent.put(kind, Counter.builder("notifications.sent")
+                    .description("Notifications handed over to the notification service, per kind")
+                    .tag("kind", kind.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void send(Notification notification) {
+        switch (notification.kind()) {
+            case DELAY:
+                notificationService.sendDelayNotification(notification.leadTime(), notification.productName());
+                break;
+            case OUT_OF_STOCK:
+                notificationService.sendOutOfStockNotification(notification.productName());
+                break;
+            case EXPIRATION:
+                notificationService.sendExpirationNotification(notification.productName(), notification.expiryDate());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown notification kind: " + notification.kind());
+        }
+        sent.get(notification.kind()).increment();
+    }
+
+    public void sendAll(List<Notification> notifications) {
+        notifications.forEach(this::send);
+    }
+}
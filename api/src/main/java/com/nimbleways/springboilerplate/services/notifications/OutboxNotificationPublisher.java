@@ -0,0 +1,36 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEntry;
+import com.nimbleways.springboilerplate.repositories.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Writes notifications to the outbox, in the transaction of the caller: they are relayed by the
+ * {@link NotificationOutboxRelay} once it commits, and never when it rolls back.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notifications", name = "delivery", havingValue = "OUTBOX", matchIfMissing = true)
+@RequiredArgsConstructor
+public class OutboxNotificationPublisher implements NotificationPublisher {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+
+    @Override
+    public void publish(Notification notification) {
+        notificationOutboxRepository.save(NotificationOutboxEntry.of(notification, Instant.now()));
+    }
+
+    @Override
+    public void publishAll(Collection<Notification> notifications) {
+        Instant now = Instant.now();
+        notificationOutboxRepository.saveAll(notifications.stream()
+                .map(notification -> NotificationOutboxEntry.of(notification, now))
+                .collect(Collectors.toList()));
+    }
+}
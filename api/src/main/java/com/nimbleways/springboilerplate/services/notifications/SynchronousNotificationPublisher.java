@@ -0,0 +1,27 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "notifications", name = "delivery", havingValue = "SYNC")
+@RequiredArgsConstructor
+public class SynchronousNotificationPublisher implements NotificationPublisher {
+
+    private final NotificationSender notificationSender;
+    private final NotificationCoalescer notificationCoalescer;
+
+    @Override
+    public void publish(Notification notification) {
+        if (!notificationCoalescer.admit(notification)) {
+            return;
+        }
+        try {
+            notificationSender.send(notification);
+        } catch (RuntimeException e) {
+            notificationCoalescer.withdraw(notification);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.nimbleways.springboilerplate.services.queue;
+
+import com.nimbleways.springboilerplate.config.OrderQueueProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderQueueEntryResponse;
+import com.nimbleways.springboilerplate.entities.OrderQueueEntry;
+import com.nimbleways.springboilerplate.entities.OrderQueueStatus;
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.OrderQueueEntryNotFoundException;
+import com.nimbleways.springboilerplate.repositories.OrderQueueRepository;
+import com.nimbleways.springboilerplate.services.OrderProcessingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Order processing queue shared by the instances, kept in the {@code order_processing_queue} table.
+ * <p>
+ * Every instance runs {@code orders.queue.workers} workers, which claim the due entries in batches with
+ * {@code select ... for update skip locked}: concurrent claims take distinct entries instead of waiting for each other,
+ * so throughput grows with the number of instances. A claimed entry is leased to the instance for
+ * {@code orders.queue.lease-timeout}; when the instance dies, the entry is claimed again once its lease expired.
+ * <p>
+ * An order is processed and its entry marked done in one transaction, which is rolled back when the lease was lost
+ * meanwhile, so the stock of an order is taken once. A failed attempt is retried with an exponential backoff, up to
+ * {@code orders.queue.max-attempts}, after which the entry is dead-lettered; unknown orders are dead-lettered at once.
+ */
+@Service
+@Slf4j
+public class OrderQueueService {
+
+    static final String ENTRIES_COUNTER = "orders.queue.entries";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OrderProcessingService orderProcessingService;
+    private final OrderQueueRepository orderQueueRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderQueueProperties properties;
+    private final Clock clock;
+    private final ScheduledExecutorService workers;
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+    private final Counter claimConflicts;
+    private final Timer claimTimer;
+    private volatile boolean stopped;
+
+    @Autowired
+    public OrderQueueService(OrderProcessingService orderProcessingService, OrderQueueRepository orderQueueRepository,
+                             TransactionTemplate transactionTemplate, OrderQueueProperties properties,
+                             MeterRegistry meterRegistry) {
+        this(orderProcessingService, orderQueueRepository, transactionTemplate, properties, meterRegistry,
+                Clock.systemDefaultZone());
+    }
+
+    OrderQueueService(OrderProcessingService orderProcessingService, OrderQueueRepository orderQueueRepository,
+                      TransactionTemplate transactionTemplate, OrderQueueProperties properties,
+                      MeterRegistry meterRegistry, Clock clock) {
+        this.orderProcessingService = orderProcessingService;
+        this.orderQueueRepository = orderQueueRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.clock = clock;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(properties.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "order-queue-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder(ENTRIES_COUNTER)
+                    .description("Order processing queue entries handled by this instance, by outcome")
+                    .tag("outcome", outcome.name())
+                    .register(meterRegistry));
+        }
+        this.claimConflicts = Counter.builder("orders.queue.claim.conflicts")
+                .description("Claims given up because another instance claimed the same entries first")
+                .register(meterRegistry);
+        this.claimTimer = Timer.builder("orders.queue.claim")
+                .description("Time spent claiming order processing queue entries")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long pollInterval = properties.getPollInterval().toMillis();
+        for (int worker = 0; worker < properties.getWorkers(); worker++) {
+            workers.scheduleWithFixedDelay(this::drainQuietly, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues the orders, to be processed by the first instance that claims them
+     */
+    public List<OrderQueueEntryResponse> enqueue(List<Long> orderIds) {
+        Instant now = clock.instant();
+        List<OrderQueueEntry> entries = transactionTemplate.execute(status -> orderQueueRepository.saveAll(
+                orderIds.stream().map(orderId -> OrderQueueEntry.pending(orderId, now)).collect(Collectors.toList())));
+        return entries.stream().map(OrderQueueEntryResponse::of).collect(Collectors.toList());
+    }
+
+    public OrderQueueEntryResponse getEntry(Long entryId) {
+        return orderQueueRepository.findById(entryId)
+                .map(OrderQueueEntryResponse::of)
+                .orElseThrow(() -> new OrderQueueEntryNotFoundException(entryId));
+    }
+
+    /**
+     * Claims and processes batches of entries until none is due
+     * @return the entries claimed
+     */
+    int drain() {
+        int claimed = 0;
+        List<OrderQueueEntry> batch;
+        while (!stopped && !(batch = claim()).isEmpty()) {
+            batch.forEach(this::process);
+            claimed += batch.size();
+        }
+        return claimed;
+    }
+
+    /**
+     * Delay before the attempt following the given number of attempts
+     */
+    Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 30));
+        return backoff.compareTo(properties.getMaxBackoff()) < 0 ? backoff : properties.getMaxBackoff();
+    }
+
+    private List<OrderQueueEntry> claim() {
+        long startNanos = System.nanoTime();
+        List<OrderQueueEntry> claimed = new ArrayList<>();
+        int deadLettered;
+        try {
+            deadLettered = transactionTemplate.execute(status -> lockAndLease(claimed));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // only where the database cannot skip locked rows: the entries were claimed while this claim waited
+            claimConflicts.increment();
+            return List.of();
+        } finally {
+            claimTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        outcomes.get(Outcome.DEAD_LETTERED).increment(deadLettered);
+        return claimed;
+    }
+
+    /**
+     * Leases the claimable entries to this instance, dead-lettering the expired leases of the last attempt
+     * @return the entries dead-lettered
+     */
+    private int lockAndLease(List<OrderQueueEntry> claimed) {
+        Instant now = clock.instant();
+        int deadLettered = 0;
+        for (OrderQueueEntry entry : orderQueueRepository.lockClaimable(now, PageRequest.of(0, properties.getClaimBatchSize()))) {
+            if (entry.getStatus() == OrderQueueStatus.RUNNING && entry.getAttempts() >= properties.getMaxAttempts()) {
+                entry.setStatus(OrderQueueStatus.DEAD);
+                entry.setLeaseExpiresAt(null);
+                entry.setFinishedAt(now);
+                entry.setLastError("lease of " + entry.getLeaseOwner() + " expired on the last attempt");
+                deadLettered++;
+                continue;
+            }
+            entry.setStatus(OrderQueueStatus.RUNNING);
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setLeaseOwner(properties.getInstanceId());
+            entry.setLeaseExpiresAt(now.plus(properties.getLeaseTimeout()));
+            claimed.add(entry);
+        }
+        return deadLettered;
+    }
+
+    private void process(OrderQueueEntry entry) {
+        Outcome outcome;
+        try {
+            Boolean completed = transactionTemplate.execute(status -> {
+                orderProcessingService.processOrder(entry.getOrderId());
+                if (orderQueueRepository.finish(entry.getId(), entry.getVersion(), OrderQueueStatus.DONE,
+                        clock.instant(), null) == 1) {
+                    return true;
+                }
+                status.setRollbackOnly();
+                return false;
+            });
+            outcome = Boolean.TRUE.equals(completed) ? Outcome.PROCESSED : Outcome.LEASE_LOST;
+        } catch (OrderNotFoundException e) {
+            outcome = fail(entry, e, false);
+        } catch (RuntimeException e) {
+            log.warn("attempt {} of queued order {} failed: {}", entry.getAttempts(), entry.getOrderId(), e.getMessage(), e);
+            outcome = fail(entry, e, true);
+        }
+        outcomes.get(outcome).increment();
+    }
+
+    private Outcome fail(OrderQueueEntry entry, RuntimeException failure, boolean retryable) {
+        Instant now = clock.instant();
+        String error = errorOf(failure);
+        boolean retry = retryable && entry.getAttempts() < properties.getMaxAttempts();
+        Integer updated = transactionTemplate.execute(status -> retry
+                ? orderQueueRepository.reschedule(entry.getId(), entry.getVersion(), now.plus(backoff(entry.getAttempts())), error)
+                : orderQueueRepository.finish(entry.getId(), entry.getVersion(), OrderQueueStatus.DEAD, now, error));
+        if (updated == null || updated == 0) {
+            return Outcome.LEASE_LOST;
+        }
+        if (!retry) {
+            log.error("queued order {} dead-lettered after {} attempts: {}", entry.getOrderId(), entry.getAttempts(), error);
+        }
+        return retry ? Outcome.RETRIED : Outcome.DEAD_LETTERED;
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("order processing queue poll failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String errorOf(RuntimeException failure) {
+        String error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getName();
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private enum Outcome {
+        PROCESSED,
+        RETRIED,
+        DEAD_LETTERED,
+        /**
+         * The lease expired during the attempt and the entry was claimed again, the attempt is rolled back
+         */
+        LEASE_LOST
+    }
+}
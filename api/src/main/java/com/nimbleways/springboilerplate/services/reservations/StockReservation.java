@@ -0,0 +1,81 @@
+package com.nimbleways.springboilerplate.services.reservations;
+
+import com.nimbleways.springboilerplate.dto.order.StockReservationStatus;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Units of an order taken from stock until the reservation is confirmed, released or expires.
+ * The status only leaves {@link StockReservationStatus#HELD} through a compare-and-set, so that exactly one of the
+ * confirmation, the release and the reaper wins.
+ */
+final class StockReservation {
+
+    static final Comparator<StockReservation> EXPIRY_ORDER = Comparator.comparing(StockReservation::getExpiresAt)
+            .thenComparing(StockReservation::getOrderId);
+
+    private final Long orderId;
+    private final AtomicReference<StockReservationStatus> status;
+    private volatile List<Long> productIds = List.of();
+    private volatile Instant expiresAt;
+
+    StockReservation(Long orderId) {
+        this.orderId = orderId;
+        this.status = new AtomicReference<>(StockReservationStatus.RESERVING);
+    }
+
+    /**
+     * A hold whose row is in the database
+     */
+    static StockReservation persisted(Long orderId, List<Long> productIds, Instant expiresAt) {
+        StockReservation reservation = new StockReservation(orderId);
+        reservation.hold(productIds, expiresAt);
+        return reservation;
+    }
+
+    Long getOrderId() {
+        return orderId;
+    }
+
+    StockReservationStatus getStatus() {
+        return status.get();
+    }
+
+    List<Long> getProductIds() {
+        return productIds;
+    }
+
+    Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /**
+     * Publishes the units taken, once they are
+     */
+    void hold(List<Long> productIds, Instant expiresAt) {
+        this.productIds = List.copyOf(productIds);
+        this.expiresAt = expiresAt;
+        status.set(StockReservationStatus.HELD);
+    }
+
+    /**
+     * @return whether the reservation was held and now has the given status
+     */
+    boolean leaveHold(StockReservationStatus newStatus) {
+        return status.compareAndSet(StockReservationStatus.HELD, newStatus);
+    }
+
+    /**
+     * Holds the units again, after the change that took the reservation out of its hold failed
+     */
+    void restoreHold(StockReservationStatus failedStatus) {
+        status.compareAndSet(failedStatus, StockReservationStatus.HELD);
+    }
+}
@@ -0,0 +1,398 @@
+package com.nimbleways.springboilerplate.services.reservations;
+
+import com.nimbleways.springboilerplate.config.StockProperties;
+import com.nimbleways.springboilerplate.dto.order.StockReservationResponse;
+import com.nimbleways.springboilerplate.dto.order.StockReservationStatus;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.exceptions.StockReservationNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.StockReservationRejectedException;
+import com.nimbleways.springboilerplate.services.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Two-phase stock reservations: all the items of an order are taken from stock at once, then the reservation is either
+ * confirmed, which keeps the units taken, or released, which puts them back. Holds not confirmed within
+ * {@code stock.reservation.ttl} are put back in bulk by a background reaper.
+ * <p>
+ * Units are taken through the {@link StockConcurrencyStrategy}, in short transactions: no database lock outlives the
+ * reservation call. The transaction that takes the units first claims the order in the {@code stock_reservations}
+ * table, so that an order is only reserved once whichever instance is asked. The holds are also kept in memory, in
+ * lock-free maps, for the reaper, and reloaded from the table on startup.
+ * <p>
+ * The row is what decides the fate of a hold, since every instance reloads all of them and reaps the expired ones,
+ * and a hold may be confirmed or released through another instance than the one that took it. Units are only put
+ * back, and a hold only confirmed, by the transaction whose delete removed its row, the reaper only deleting rows
+ * expired in the table; the holds whose row is already gone are dropped from memory. A hold unknown to this instance
+ * is looked up in the table.
+ */
+@Service
+@Slf4j
+public class StockReservationService {
+
+    static final String RESERVATIONS_COUNTER = "stock.reservations";
+
+    private static final String CLAIM_SQL = "insert into stock_reservations (order_id, expires_at) select ?, ?"
+            + " where not exists (select 1 from stock_reservations where order_id = ?)";
+    private static final String DELETE_SQL = "delete from stock_reservations where order_id = ?";
+    private static final String DELETE_EXPIRED_SQL = "delete from stock_reservations where order_id = ? and expires_at <= ?";
+    private static final String LOAD_SQL = "select r.order_id, r.expires_at, i.product_id from stock_reservations r "
+            + "join order_items i on i.order_id = r.order_id order by r.order_id";
+    private static final String LOAD_ONE_SQL = "select r.expires_at, i.product_id from stock_reservations r "
+            + "join order_items i on i.order_id = r.order_id where r.order_id = ?";
+    private static final int REAP_BATCH_SIZE = 1000;
+
+    private final OrderProcessingService orderProcessingService;
+    private final StockConcurrencyStrategy stockConcurrencyStrategy;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockProperties.Reservation properties;
+    private final Clock clock;
+    private final Map<Long, StockReservation> reservations = new ConcurrentHashMap<>();
+    private final NavigableSet<StockReservation> byExpiry = new ConcurrentSkipListSet<>(StockReservation.EXPIRY_ORDER);
+    private final ScheduledExecutorService reaper;
+    private final Map<StockReservationStatus, Counter> outcomes = new EnumMap<>(StockReservationStatus.class);
+    private final Counter rejected;
+
+    @Autowired
+    public StockReservationService(OrderProcessingService orderProcessingService,
+                                   StockConcurrencyStrategy stockConcurrencyStrategy, JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate, StockProperties stockProperties,
+                                   MeterRegistry meterRegistry) {
+        this(orderProcessingService, stockConcurrencyStrategy, jdbcTemplate, transactionTemplate, stockProperties,
+                meterRegistry, Clock.systemDefaultZone());
+    }
+
+    StockReservationService(OrderProcessingService orderProcessingService,
+                            StockConcurrencyStrategy stockConcurrencyStrategy, JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate, StockProperties stockProperties,
+                            MeterRegistry meterRegistry, Clock clock) {
+        this.orderProcessingService = orderProcessingService;
+        this.stockConcurrencyStrategy = stockConcurrencyStrategy;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = stockProperties.getReservation();
+        this.clock = clock;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-reservation-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (StockReservationStatus status : List.of(StockReservationStatus.HELD, StockReservationStatus.CONFIRMED,
+                StockReservationStatus.RELEASED, StockReservationStatus.EXPIRED)) {
+            outcomes.put(status, outcomeCounter(status.name(), meterRegistry));
+        }
+        this.rejected = outcomeCounter("REJECTED", meterRegistry);
+        Gauge.builder("stock.reservations.active", reservations, Map::size)
+                .description("Stock reservations in progress or held")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        load();
+        long reapInterval = properties.getReapInterval().toMillis();
+        reaper.scheduleWithFixedDelay(this::reapQuietly, reapInterval, reapInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        reaper.shutdown();
+        reaper.awaitTermination(properties.getReapInterval().toMillis() * 2, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes one unit of every item of the order, or none
+     * @return the reservation, or the one already made for the order
+     * @throws StockReservationRejectedException when an item is out of stock or cannot be sold today
+     */
+    public StockReservationResponse reserve(Long orderId) {
+        while (true) {
+            Instant expiresAt = clock.instant().plus(properties.getTtl()).truncatedTo(ChronoUnit.MILLIS);
+            TakenStock taken;
+            try {
+                taken = transactionTemplate.execute(status -> takeStock(orderId, expiresAt, status));
+            } catch (DuplicateKeyException e) {
+                taken = null;
+            }
+            if (taken != null && !taken.unavailableProductIds().isEmpty()) {
+                rejected.increment();
+                throw new StockReservationRejectedException(orderId, taken.unavailableProductIds());
+            }
+            if (taken != null) {
+                StockReservation reservation = StockReservation.persisted(orderId, taken.productIds(), expiresAt);
+                StockReservation stale = reservations.put(orderId, reservation);
+                if (stale != null) {
+                    stale.leaveHold(StockReservationStatus.EXPIRED);
+                    byExpiry.remove(stale);
+                }
+                byExpiry.add(reservation);
+                outcomes.get(StockReservationStatus.HELD).increment();
+                return toResponse(reservation);
+            }
+            StockReservation existing = loadReservation(orderId);
+            if (existing != null) {
+                return toResponse(existing);
+            }
+        }
+    }
+
+    /**
+     * Keeps the units of the order out of stock for good
+     * @throws StockReservationNotFoundException when no unit is held for the order anymore
+     */
+    public StockReservationResponse confirm(Long orderId) {
+        StockReservation reservation = find(orderId);
+        if (reservation != null && reservation.getStatus() == StockReservationStatus.HELD
+                && reservation.isExpired(clock.instant())) {
+            expire(List.of(reservation));
+            throw new StockReservationNotFoundException(orderId);
+        }
+        if (reservation == null || !reservation.leaveHold(StockReservationStatus.CONFIRMED)) {
+            throw new StockReservationNotFoundException(orderId);
+        }
+        forget(reservation);
+        if (jdbcTemplate.update(DELETE_SQL, orderId) != 1) {
+            throw new StockReservationNotFoundException(orderId);
+        }
+        outcomes.get(StockReservationStatus.CONFIRMED).increment();
+        return toResponse(reservation);
+    }
+
+    /**
+     * Puts the units of the order back in stock
+     * @throws StockReservationNotFoundException when no unit is held for the order anymore
+     */
+    public StockReservationResponse release(Long orderId) {
+        StockReservation reservation = find(orderId);
+        if (reservation == null || !reservation.leaveHold(StockReservationStatus.RELEASED)
+                || putBack(List.of(reservation), StockReservationStatus.RELEASED, null).isEmpty()) {
+            throw new StockReservationNotFoundException(orderId);
+        }
+        outcomes.get(StockReservationStatus.RELEASED).increment();
+        return toResponse(reservation);
+    }
+
+    /**
+     * Puts the units of the expired holds back in stock, {@value #REAP_BATCH_SIZE} reservations per transaction
+     * @return the number of reservations expired
+     */
+    public int reapExpired() {
+        Instant now = clock.instant();
+        int total = 0;
+        while (true) {
+            List<StockReservation> expired = new ArrayList<>();
+            for (StockReservation reservation : byExpiry) {
+                if (!reservation.isExpired(now) || expired.size() == REAP_BATCH_SIZE) {
+                    break;
+                }
+                if (reservation.getStatus() == StockReservationStatus.HELD) {
+                    expired.add(reservation);
+                }
+            }
+            if (expired.isEmpty()) {
+                return total;
+            }
+            total += expire(expired);
+        }
+    }
+
+    /**
+     * Claims the order, then takes its units, the transaction being rolled back when one is missing
+     * @return null when the order is already reserved
+     */
+    private TakenStock takeStock(Long orderId, Instant expiresAt, TransactionStatus status) {
+        Order order = orderProcessingService.findOrderById(orderId);
+        if (jdbcTemplate.update(CLAIM_SQL, orderId, Timestamp.from(expiresAt), orderId) == 0) {
+            return null;
+        }
+        List<Product> products = order.getItems().stream()
+                .sorted(Comparator.comparing(Product::getId))
+                .collect(Collectors.toList());
+        stockConcurrencyStrategy.prepare(products);
+        LocalDate today = LocalDate.now(clock);
+        List<Long> taken = new ArrayList<>(products.size());
+        List<Long> unavailable = new ArrayList<>();
+        for (Product product : products) {
+            if (product.isSellableOn(today) && product.getAvailable() > 0 && stockConcurrencyStrategy.decrement(product)) {
+                taken.add(product.getId());
+            } else {
+                unavailable.add(product.getId());
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            status.setRollbackOnly();
+        }
+        return new TakenStock(taken, unavailable);
+    }
+
+    /**
+     * @return the number of reservations expired, the others having been confirmed or released meanwhile
+     */
+    private int expire(List<StockReservation> candidates) {
+        List<StockReservation> expired = candidates.stream()
+                .filter(reservation -> reservation.leaveHold(StockReservationStatus.EXPIRED))
+                .collect(Collectors.toList());
+        int returned = expired.isEmpty() ? 0 : putBack(expired, StockReservationStatus.EXPIRED, clock.instant()).size();
+        outcomes.get(StockReservationStatus.EXPIRED).increment(returned);
+        candidates.forEach(byExpiry::remove);
+        return returned;
+    }
+
+    /**
+     * Deletes the rows of reservations taken out of their hold, and restocks the units of those whose row was still
+     * there, in one transaction
+     * @param expiredAt when given, only the rows expired at that instant are deleted
+     * @return the reservations whose units were put back
+     */
+    private List<StockReservation> putBack(List<StockReservation> left, StockReservationStatus newStatus,
+                                           Instant expiredAt) {
+        List<StockReservation> returned;
+        try {
+            returned = transactionTemplate.execute(status -> {
+                List<StockReservation> owned = deleteRows(left, expiredAt);
+                if (!owned.isEmpty()) {
+                    stockConcurrencyStrategy.restock(unitsByProductId(owned.stream()
+                            .flatMap(reservation -> reservation.getProductIds().stream())
+                            .collect(Collectors.toList())));
+                }
+                return owned;
+            });
+        } catch (RuntimeException e) {
+            left.forEach(reservation -> reservation.restoreHold(newStatus));
+            throw e;
+        }
+        left.forEach(this::forget);
+        if (returned.size() < left.size()) {
+            log.info("{} stock reservations were already settled by another instance", left.size() - returned.size());
+        }
+        return returned;
+    }
+
+    /**
+     * @return the reservations whose row this call deleted
+     */
+    private List<StockReservation> deleteRows(List<StockReservation> left, Instant expiredAt) {
+        int[] deleted = expiredAt == null
+                ? jdbcTemplate.batchUpdate(DELETE_SQL, left.stream()
+                        .map(reservation -> new Object[]{reservation.getOrderId()})
+                        .collect(Collectors.toList()))
+                : jdbcTemplate.batchUpdate(DELETE_EXPIRED_SQL, left.stream()
+                        .map(reservation -> new Object[]{reservation.getOrderId(), Timestamp.from(expiredAt)})
+                        .collect(Collectors.toList()));
+        List<StockReservation> owned = new ArrayList<>(left.size());
+        for (int index = 0; index < deleted.length; index++) {
+            if (deleted[index] == 1) {
+                owned.add(left.get(index));
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * @return the reservation held in memory, else the one written by another instance, or null
+     */
+    private StockReservation find(Long orderId) {
+        StockReservation reservation = reservations.get(orderId);
+        return reservation != null ? reservation : loadReservation(orderId);
+    }
+
+    /**
+     * @return the hold of the order read from the table, or null
+     */
+    private StockReservation loadReservation(Long orderId) {
+        List<Long> productIds = new ArrayList<>();
+        Instant[] expiresAt = new Instant[1];
+        jdbcTemplate.query(LOAD_ONE_SQL, rs -> {
+            expiresAt[0] = rs.getTimestamp(1).toInstant();
+            productIds.add(rs.getLong(2));
+        }, orderId);
+        return expiresAt[0] == null ? null : StockReservation.persisted(orderId, productIds, expiresAt[0]);
+    }
+
+    private void forget(StockReservation reservation) {
+        reservations.remove(reservation.getOrderId(), reservation);
+        byExpiry.remove(reservation);
+    }
+
+    private void load() {
+        Map<Long, Instant> expiries = new LinkedHashMap<>();
+        Map<Long, List<Long>> productIds = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            long orderId = rs.getLong(1);
+            expiries.put(orderId, rs.getTimestamp(2).toInstant());
+            productIds.computeIfAbsent(orderId, id -> new ArrayList<>()).add(rs.getLong(3));
+        });
+        expiries.forEach((orderId, expiresAt) -> {
+            StockReservation reservation = StockReservation.persisted(orderId, productIds.get(orderId), expiresAt);
+            reservations.put(orderId, reservation);
+            byExpiry.add(reservation);
+        });
+        if (!expiries.isEmpty()) {
+            log.info("reloaded {} stock reservations", expiries.size());
+        }
+    }
+
+    private void reapQuietly() {
+        try {
+            int expired = reapExpired();
+            if (expired > 0) {
+                log.info("put back the stock of {} expired reservations", expired);
+            }
+        } catch (RuntimeException e) {
+            log.error("stock reservation reaping failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    private static Map<Long, Integer> unitsByProductId(List<Long> productIds) {
+        Map<Long, Integer> units = new HashMap<>();
+        productIds.forEach(productId -> units.merge(productId, 1, Integer::sum));
+        return units;
+    }
+
+    private static StockReservationResponse toResponse(StockReservation reservation) {
+        return new StockReservationResponse(reservation.getOrderId(), reservation.getStatus(), reservation.getExpiresAt());
+    }
+
+    private static Counter outcomeCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder(RESERVATIONS_COUNTER)
+                .description("Stock reservations, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record TakenStock(List<Long> productIds, List<Long> unavailableProductIds) {
+    }
+}
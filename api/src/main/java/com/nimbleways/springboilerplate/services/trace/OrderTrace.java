@@ -0,0 +1,152 @@
+package com.nimbleways.springboilerplate.services.trace;
+
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingStatus;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.StockMutation;
+import com.nimbleways.springboilerplate.services.notifications.NotificationKind;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * What happened to an order while it was processed: the time spent in each step, and the type, decision and decision
+ * time of its first items. Every field is allocated once per thread and overwritten by the next order, so that
+ * recording costs no allocation; the trace is only turned into text when it is logged.
+ * <p>
+ * Items are recorded by index, possibly from several threads during the parallel decisions, each index being written
+ * by a single thread.
+ */
+public final class OrderTrace {
+
+    public enum Step {
+        LOAD,
+        PREPARE,
+        DECIDE,
+        APPLY,
+        PUBLISH
+    }
+
+    private static final Step[] STEPS = Step.values();
+
+    private final LongSupplier nanoTime;
+    private final long[] stepNanos = new long[STEPS.length];
+    private final long[] itemIds;
+    private final ProductType[] itemTypes;
+    private final StockMutation[] itemMutations;
+    private final NotificationKind[] itemNotifications;
+    private final boolean[] itemSoldOut;
+    private final long[] itemDecideNanos;
+
+    private Long orderId;
+    private long startNanos;
+    private long markNanos;
+    private long endNanos;
+    private int items;
+
+    OrderTrace(int maxItems, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.itemIds = new long[maxItems];
+        this.itemTypes = new ProductType[maxItems];
+        this.itemMutations = new StockMutation[maxItems];
+        this.itemNotifications = new NotificationKind[maxItems];
+        this.itemSoldOut = new boolean[maxItems];
+        this.itemDecideNanos = new long[maxItems];
+    }
+
+    void start(Long orderId) {
+        this.orderId = orderId;
+        this.startNanos = nanoTime.getAsLong();
+        this.markNanos = startNanos;
+        this.items = 0;
+        Arrays.fill(stepNanos, 0);
+    }
+
+    public long now() {
+        return nanoTime.getAsLong();
+    }
+
+    /**
+     * Ends the step started when the previous one ended
+     */
+    public void endStep(Step step) {
+        long now = nanoTime.getAsLong();
+        stepNanos[step.ordinal()] += now - markNanos;
+        markNanos = now;
+    }
+
+    /**
+     * @param items the number of items of the order, recorded or not
+     */
+    public void items(int items) {
+        this.items = items;
+    }
+
+    public void decided(int index, ProductDecision decision, long decideNanos) {
+        if (index >= itemIds.length) {
+            return;
+        }
+        Product product = decision.product();
+        itemIds[index] = product.getId() == null ? 0 : product.getId();
+        itemTypes[index] = product.getType();
+        itemMutations[index] = decision.stockMutation();
+        itemNotifications[index] = decision.notification() == null ? null : decision.notification().kind();
+        itemSoldOut[index] = false;
+        itemDecideNanos[index] = decideNanos;
+    }
+
+    /**
+     * The item found no unit left, and was decided again with the given outcome
+     */
+    public void soldOut(int index, ProductDecision decision) {
+        if (index >= itemIds.length) {
+            return;
+        }
+        itemSoldOut[index] = true;
+        itemNotifications[index] = decision.notification() == null ? null : decision.notification().kind();
+    }
+
+    void end() {
+        endNanos = nanoTime.getAsLong();
+    }
+
+    long totalNanos() {
+        return endNanos - startNanos;
+    }
+
+    String format(OrderProcessingStatus outcome, OrderTracer.Reason reason) {
+        int recorded = Math.min(items, itemIds.length);
+        StringBuilder text = new StringBuilder(96 + recorded * 48);
+        text.append("order=").append(orderId)
+                .append(" outcome=").append(outcome)
+                .append(" reason=").append(reason)
+                .append(" total_us=").append(micros(totalNanos()));
+        for (Step step : STEPS) {
+            text.append(' ').append(step.name().toLowerCase()).append("_us=").append(micros(stepNanos[step.ordinal()]));
+        }
+        text.append(" items=").append(items).append(" [");
+        for (int index = 0; index < recorded; index++) {
+            if (index > 0) {
+                text.append(", ");
+            }
+            text.append(itemIds[index]).append(':').append(itemTypes[index]).append(':').append(itemMutations[index]);
+            if (itemSoldOut[index]) {
+                text.append(":SOLD_OUT");
+            }
+            if (itemNotifications[index] != null) {
+                text.append(':').append(itemNotifications[index]);
+            }
+            text.append(':').append(micros(itemDecideNanos[index])).append("us");
+        }
+        if (recorded < items) {
+            text.append(", +").append(items - recorded);
+        }
+        return text.append(']').toString();
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
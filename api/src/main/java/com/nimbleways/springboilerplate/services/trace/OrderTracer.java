@@ -0,0 +1,86 @@
+package com.nimbleways.springboilerplate.services.trace;
+
+import com.nimbleways.springboilerplate.config.OrderTraceProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out the {@link OrderTrace} of the current thread, and logs it once the order is processed if the order was
+ * slower than {@code orders.trace.slow-threshold} or is part of the {@code orders.trace.sample-rate} sample. Other
+ * traces are dropped without being formatted. The {@value #LOGGER} logger writes through an asynchronous appender, see
+ * {@code logback-spring.xml}.
+ */
+@Component
+public class OrderTracer {
+
+    public static final String LOGGER = "orders.trace";
+
+    enum Reason {
+        SLOW,
+        SAMPLED
+    }
+
+    private final Logger traceLog;
+    private final DoubleSupplier random;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final ThreadLocal<OrderTrace> traces;
+    private final Map<Reason, Counter> logged = new EnumMap<>(Reason.class);
+
+    @Autowired
+    public OrderTracer(OrderTraceProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, LoggerFactory.getLogger(LOGGER), System::nanoTime,
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    OrderTracer(OrderTraceProperties properties, MeterRegistry meterRegistry, Logger traceLog, LongSupplier nanoTime,
+                DoubleSupplier random) {
+        this.traceLog = traceLog;
+        this.random = random;
+        this.sampleRate = properties.getSampleRate();
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.traces = ThreadLocal.withInitial(() -> new OrderTrace(properties.getMaxItems(), nanoTime));
+        for (Reason reason : Reason.values()) {
+            logged.put(reason, Counter.builder("orders.trace.logged")
+                    .description("Order processing traces logged")
+                    .tag("reason", reason.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return the trace of the current thread, emptied, to be passed to {@link #finish} once the order is processed
+     */
+    public OrderTrace start(Long orderId) {
+        OrderTrace trace = traces.get();
+        trace.start(orderId);
+        return trace;
+    }
+
+    public void finish(OrderTrace trace, OrderProcessingStatus outcome) {
+        trace.end();
+        Reason reason;
+        if (trace.totalNanos() >= slowThresholdNanos) {
+            reason = Reason.SLOW;
+        } else if (sampleRate > 0 && random.getAsDouble() < sampleRate) {
+            reason = Reason.SAMPLED;
+        } else {
+            return;
+        }
+        if (traceLog.isInfoEnabled()) {
+            logged.get(reason).increment();
+            traceLog.info(trace.format(outcome, reason));
+        }
+    }
+}
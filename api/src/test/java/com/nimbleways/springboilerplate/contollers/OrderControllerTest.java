@@ -1,14 +1,30 @@
 package com.nimbleways.springboilerplate.contollers;
 
 import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderJobResponse;
+import com.nimbleways.springboilerplate.dto.order.OrderJobStatus;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingResult;
+import com.nimbleways.springboilerplate.dto.order.OrderQueueEntryResponse;
+import com.nimbleways.springboilerplate.dto.order.ProcessOrdersRequest;
+import com.nimbleways.springboilerplate.dto.order.ProcessOrdersResponse;
+import com.nimbleways.springboilerplate.dto.order.StockReservationResponse;
+import com.nimbleways.springboilerplate.dto.order.StockReservationStatus;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
-import com.nimbleways.springboilerplate.services.OrderProcessingService;
+import com.nimbleways.springboilerplate.entities.OrderQueueStatus;
+import com.nimbleways.springboilerplate.services.OrderBatchProcessingService;
+import com.nimbleways.springboilerplate.services.OrderIdempotencyService;
+import com.nimbleways.springboilerplate.services.OrderJobService;
+import com.nimbleways.springboilerplate.services.queue.OrderQueueService;
+import com.nimbleways.springboilerplate.services.reservations.StockReservationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -16,7 +32,19 @@ import static org.mockito.Mockito.*;
 class OrderControllerTest {
 
     @Mock
-    private OrderProcessingService orderProcessingService;
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @Mock
+    private OrderBatchProcessingService orderBatchProcessingService;
+
+    @Mock
+    private OrderJobService orderJobService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private OrderQueueService orderQueueService;
 
     @InjectMocks
     private OrderController controller;
@@ -25,23 +53,71 @@ class OrderControllerTest {
     void mustReturnProcessOrderResponse() {
         Long orderId = 123L;
         OrderDto orderDto = new OrderDto(orderId);
-        when(orderProcessingService.processOrder(orderId)).thenReturn(orderDto);
+        when(orderIdempotencyService.processOrder(orderId, null)).thenReturn(orderDto);
 
-        ProcessOrderResponse reponse = controller.processOrder(orderId);
+        ProcessOrderResponse reponse = controller.processOrder(orderId, null);
 
         assertThat(reponse).isNotNull();
         assertThat(reponse.id()).isEqualTo(orderId);
-        verify(orderProcessingService).processOrder(orderId);
+        verify(orderIdempotencyService).processOrder(orderId, null);
     }
 
     @Test
     void mustCallProcessOrderService() {
         Long orderId = 999L;
         OrderDto orderDto = new OrderDto(orderId);
-        when(orderProcessingService.processOrder(orderId)).thenReturn(orderDto);
+        when(orderIdempotencyService.processOrder(orderId, "retry-1")).thenReturn(orderDto);
+
+        controller.processOrder(orderId, "retry-1");
+
+        verify(orderIdempotencyService, times(1)).processOrder(orderId, "retry-1");
+    }
+
+    @Test
+    void mustReturnOneResultPerOrder() {
+        List<Long> orderIds = List.of(1L, 2L);
+        List<OrderProcessingResult> results = List.of(
+            OrderProcessingResult.processed(1L),
+            OrderProcessingResult.notFound(2L)
+        );
+        when(orderBatchProcessingService.processOrders(orderIds)).thenReturn(results);
+
+        ProcessOrdersResponse response = controller.processOrders(new ProcessOrdersRequest(orderIds));
+
+        assertThat(response.results()).isEqualTo(results);
+    }
+
+    @Test
+    void mustSubmitJobWhenAsync() {
+        OrderJobResponse job = new OrderJobResponse("job-1", 123L, OrderJobStatus.QUEUED, null, Instant.now(), null);
+        when(orderIdempotencyService.submitOrder(123L, "retry-1")).thenReturn(job);
+
+        OrderJobResponse response = controller.processOrderAsync(123L, "retry-1");
+
+        assertThat(response).isEqualTo(job);
+        verifyNoInteractions(orderJobService);
+    }
+
+    @Test
+    void mustReserveStockWithoutProcessingOrder() {
+        StockReservationResponse reservation = new StockReservationResponse(123L, StockReservationStatus.HELD, Instant.now());
+        when(stockReservationService.reserve(123L)).thenReturn(reservation);
+
+        StockReservationResponse response = controller.reserve(123L);
+
+        assertThat(response).isEqualTo(reservation);
+        verifyNoInteractions(orderIdempotencyService);
+    }
+
+    @Test
+    void mustQueueOrdersWithoutProcessingThem() {
+        List<OrderQueueEntryResponse> entries = List.of(
+            new OrderQueueEntryResponse(1L, 123L, OrderQueueStatus.PENDING, 0, Instant.now(), null, null));
+        when(orderQueueService.enqueue(List.of(123L))).thenReturn(entries);
 
-        controller.processOrder(orderId);
+        List<OrderQueueEntryResponse> response = controller.enqueueOrders(new ProcessOrdersRequest(List.of(123L)));
 
-        verify(orderProcessingService, times(1)).processOrder(orderId);
+        assertThat(response).isEqualTo(entries);
+        verifyNoInteractions(orderIdempotencyService, orderBatchProcessingService);
     }
-}
\ No newline at end of file
+}
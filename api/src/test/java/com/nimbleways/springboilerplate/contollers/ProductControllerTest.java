@@ -0,0 +1,77 @@
+package com.nimbleways.springboilerplate.contollers;
+
+import com.nimbleways.springboilerplate.dto.product.IngestionLineError;
+import com.nimbleways.springboilerplate.dto.product.ProductAvailability;
+import com.nimbleways.springboilerplate.dto.product.ProductExportFormat;
+import com.nimbleways.springboilerplate.dto.product.ProductIngestionResponse;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.services.export.ProductExportService;
+import com.nimbleways.springboilerplate.services.ingestion.ProductIngestionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductControllerTest {
+
+    @Mock
+    private ProductIngestionService productIngestionService;
+
+    @Mock
+    private ProductExportService productExportService;
+
+    @InjectMocks
+    private ProductController controller;
+
+    @Test
+    void mustPassTheImportBodyToTheService() {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ProductIngestionResponse expected = new ProductIngestionResponse(2, 1, List.of(new IngestionLineError(3, "name must not be blank")));
+        when(productIngestionService.importProducts(body)).thenReturn(expected);
+
+        ProductIngestionResponse response = controller.importProducts(body);
+
+        assertThat(response).isEqualTo(expected);
+    }
+
+    @Test
+    void mustPassTheRestockBodyToTheService() {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ProductIngestionResponse expected = new ProductIngestionResponse(5, 0, List.of());
+        when(productIngestionService.restock(body)).thenReturn(expected);
+
+        ProductIngestionResponse response = controller.restock(body);
+
+        assertThat(response).isEqualTo(expected);
+        verify(productIngestionService, never()).importProducts(any());
+    }
+
+    @Test
+    void mustStreamTheExportOnlyWhenTheBodyIsWritten() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.export(ProductExportFormat.CSV, ProductType.NORMAL,
+            ProductAvailability.IN_STOCK);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(new MediaType("text", "csv"));
+        verifyNoInteractions(productExportService);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+
+        verify(productExportService).export(ProductExportFormat.CSV, ProductType.NORMAL, ProductAvailability.IN_STOCK, output);
+    }
+}
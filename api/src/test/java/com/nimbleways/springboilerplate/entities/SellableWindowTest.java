@@ -0,0 +1,48 @@
+package com.nimbleways.springboilerplate.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SellableWindowTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Test
+    void normalProductIsAlwaysSellable() {
+        SellableWindow window = SellableWindow.of(ProductType.NORMAL, null, null, null);
+
+        assertThat(window).isEqualTo(new SellableWindow(SellableWindow.ALWAYS_FROM, SellableWindow.ALWAYS_UNTIL));
+        assertThat(window.contains(TODAY)).isTrue();
+    }
+
+    @Test
+    void expirableProductIsSellableUntilTheDayBeforeItsExpiry() {
+        SellableWindow window = SellableWindow.of(ProductType.EXPIRABLE, TODAY, null, null);
+
+        assertThat(window.contains(TODAY.minusDays(1))).isTrue();
+        assertThat(window.contains(TODAY)).isFalse();
+    }
+
+    @Test
+    void seasonalProductIsSellableStrictlyInsideItsSeason() {
+        SellableWindow window = SellableWindow.of(ProductType.SEASONAL, null, TODAY, TODAY.plusDays(10));
+
+        assertThat(window.contains(TODAY)).isFalse();
+        assertThat(window.contains(TODAY.plusDays(1))).isTrue();
+        assertThat(window.contains(TODAY.plusDays(9))).isTrue();
+        assertThat(window.contains(TODAY.plusDays(10))).isFalse();
+    }
+
+    @Test
+    void productFallsBackToItsDatesWhenWindowIsMissing() {
+        Product product = new Product();
+        product.setType(ProductType.EXPIRABLE);
+        product.setExpiryDate(TODAY);
+
+        assertThat(product.isSellableOn(TODAY.minusDays(1))).isTrue();
+        assertThat(product.isSellableOn(TODAY)).isFalse();
+    }
+}
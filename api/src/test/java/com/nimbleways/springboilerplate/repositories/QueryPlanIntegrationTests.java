@@ -0,0 +1,62 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks, on the schema of the Liquibase changelog, that the hot queries are served by an index.
+ * The statements mirror the SQL Hibernate generates for the repository queries.
+ */
+@SpringBootTest(properties = {
+    "products.lifecycle.sweep-on-startup=false",
+    "products.lifecycle.backfill-on-startup=false"
+})
+class QueryPlanIntegrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        // OrderRepository.findWithItemsById
+        "select i.product_id from order_items i where i.order_id = 1",
+        // OrderRepository.findItemStockLevelsById
+        "select i.product_id, s.available, s.version from orders o left join order_items i on i.order_id = o.id "
+            + "left join product_stock s on s.product_id = i.product_id where o.id = 1",
+        // ProductRepository.findFirstByName
+        "select p.id from products p where p.name = 'yaourt' limit 1",
+        // ProductRepository.findReferencesByIdIn
+        "select p.id, p.name from products p where p.id in (1, 2, 3)",
+        // ProductStockRepository.lockStockLevelsOrderedById
+        "select s.product_id, s.available, s.version from product_stock s where s.product_id in (1, 2, 3) "
+            + "order by s.product_id for update",
+        // ProductStockRepository.decrementAvailable
+        "select s.available from product_stock s where s.product_id = 1 and s.available > 0",
+        // ProductRepository.findExpiredWithStock
+        "select p.id, s.available from products p join product_stock s on s.product_id = p.id "
+            + "where p.type = 'EXPIRABLE' and p.expiry_date <= date '2024-06-15' and s.available > 0",
+        // ProductRepository.findSeasonEndedWithStock
+        "select p.id, s.available from products p join product_stock s on s.product_id = p.id "
+            + "where p.type = 'SEASONAL' and p.season_end_date < date '2024-06-15' and s.available > 0",
+        // ProductRepository.findSellableOn
+        "select p.id from products p where p.sellable_from <= date '2024-06-15' and p.sellable_until >= date '2024-06-15'",
+        // ProductCatalogChangeRepository.findChangesAfter
+        "select c.id, c.product_id from product_catalog_changes c where c.id > 10 order by c.id",
+        // ProductCatalogChangeRepository.deleteChangedBefore
+        "select c.id from product_catalog_changes c where c.changed_at < timestamp '2024-06-15 00:00:00'",
+        // NotificationOutboxRepository.lockUndeliveredAfter
+        "select n.id from notification_outbox n where n.delivered_at is null and n.id > 10 order by n.id limit 500 for update",
+        // NotificationOutboxRepository.deleteDeliveredBefore
+        "select n.id from notification_outbox n where n.delivered_at < timestamp '2024-06-15 00:00:00' order by n.id limit 1000"
+    })
+    void shouldNotScanWholeTables(String query) {
+        String plan = jdbcTemplate.queryForObject("explain " + query, String.class);
+
+        assertThat(plan).as("plan of %s", query).doesNotContainIgnoringCase("tableScan");
+    }
+}
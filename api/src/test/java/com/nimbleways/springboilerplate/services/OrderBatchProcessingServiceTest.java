@@ -0,0 +1,158 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.OrderBatchProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingResult;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingStatus;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchProcessingServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderProcessingService orderProcessingService;
+
+    @Mock
+    private StockConcurrencyStrategy stockConcurrencyStrategy;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderBatchProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        OrderBatchProperties properties = new OrderBatchProperties();
+        properties.setChunkSize(2);
+        service = new OrderBatchProcessingService(
+            orderRepository,
+            orderProcessingService,
+            stockConcurrencyStrategy,
+            new TransactionTemplate(transactionManager),
+            properties
+        );
+    }
+
+    @Test
+    void shouldLoadEachChunkInOneQuery() {
+        Order order1 = createOrder(1L);
+        Order order2 = createOrder(2L);
+        Order order3 = createOrder(3L);
+        when(orderRepository.findAllWithItemsByIdIn(List.of(1L, 2L))).thenReturn(List.of(order2, order1));
+        when(orderRepository.findAllWithItemsByIdIn(List.of(3L))).thenReturn(List.of(order3));
+
+        List<OrderProcessingResult> results = service.processOrders(List.of(1L, 2L, 3L));
+
+        assertThat(results).extracting(OrderProcessingResult::orderId).containsExactly(1L, 2L, 3L);
+        assertThat(results).extracting(OrderProcessingResult::status).containsOnly(OrderProcessingStatus.PROCESSED);
+        verify(orderProcessingService).processOrder(order1);
+        verify(orderProcessingService).processOrder(order2);
+        verify(orderProcessingService).processOrder(order3);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void shouldLockTheProductsOfTheWholeChunkInIdOrderFirst() {
+        Order order1 = createOrder(1L, 7L, 3L);
+        Order order2 = createOrder(2L, 5L, 3L, 1L);
+        when(orderRepository.findAllWithItemsByIdIn(List.of(1L, 2L))).thenReturn(List.of(order1, order2));
+
+        service.processOrders(List.of(1L, 2L));
+
+        InOrder inOrder = inOrder(stockConcurrencyStrategy, orderProcessingService);
+        inOrder.verify(stockConcurrencyStrategy).lockAll(List.of(1L, 3L, 5L, 7L));
+        inOrder.verify(orderProcessingService).processOrder(order1);
+        inOrder.verify(orderProcessingService).processOrder(order2);
+    }
+
+    @Test
+    void shouldReportMissingOrdersWithoutFailingTheChunk() {
+        Order order1 = createOrder(1L);
+        when(orderRepository.findAllWithItemsByIdIn(List.of(1L, 404L))).thenReturn(List.of(order1));
+
+        List<OrderProcessingResult> results = service.processOrders(List.of(1L, 404L));
+
+        assertThat(results).containsExactly(
+            OrderProcessingResult.processed(1L),
+            OrderProcessingResult.notFound(404L)
+        );
+        verify(orderProcessingService, never()).processOrder(anyLong());
+    }
+
+    @Test
+    void shouldProcessOrdersOneByOneWhenChunkFails() {
+        Order order1 = createOrder(1L);
+        Order order2 = createOrder(2L);
+        when(orderRepository.findAllWithItemsByIdIn(List.of(1L, 2L))).thenReturn(List.of(order1, order2));
+        when(orderProcessingService.processOrder(order1)).thenReturn(new OrderDto(1L));
+        when(orderProcessingService.processOrder(order2)).thenThrow(new IllegalStateException("boom"));
+        when(orderProcessingService.processOrder(1L)).thenReturn(new OrderDto(1L));
+        when(orderProcessingService.processOrder(2L)).thenThrow(new IllegalStateException("boom"));
+
+        List<OrderProcessingResult> results = service.processOrders(List.of(1L, 2L));
+
+        assertThat(results).containsExactly(
+            OrderProcessingResult.processed(1L),
+            OrderProcessingResult.failed(2L, "boom")
+        );
+        InOrder inOrder = inOrder(orderProcessingService);
+        inOrder.verify(orderProcessingService).processOrder(order1);
+        inOrder.verify(orderProcessingService).processOrder(order2);
+        inOrder.verify(orderProcessingService).processOrder(1L);
+        inOrder.verify(orderProcessingService).processOrder(2L);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void shouldReportOrderDeletedBeforeReplay() {
+        when(orderRepository.findAllWithItemsByIdIn(List.of(7L))).thenThrow(new IllegalStateException("connection reset"));
+        when(orderProcessingService.processOrder(7L)).thenThrow(new OrderNotFoundException(7L));
+
+        List<OrderProcessingResult> results = service.processOrders(List.of(7L));
+
+        assertThat(results).containsExactly(OrderProcessingResult.notFound(7L));
+    }
+
+    @Test
+    void shouldProcessDuplicateIdsOnce() {
+        Order order1 = createOrder(1L);
+        when(orderRepository.findAllWithItemsByIdIn(List.of(1L))).thenReturn(List.of(order1));
+
+        List<OrderProcessingResult> results = service.processOrders(List.of(1L, 1L));
+
+        assertThat(results).containsExactly(OrderProcessingResult.processed(1L));
+        verify(orderProcessingService, times(1)).processOrder(order1);
+    }
+
+    private Order createOrder(Long id, Long... productIds) {
+        Order order = new Order();
+        order.setId(id);
+        order.setItems(new HashSet<>());
+        for (Long productId : productIds) {
+            Product product = new Product();
+            product.setId(productId);
+            order.getItems().add(product);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,182 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.OrderIdempotencyProperties;
+import com.nimbleways.springboilerplate.config.OrderJobProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderJobResponse;
+import com.nimbleways.springboilerplate.dto.order.OrderJobStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    @Mock
+    private OrderProcessingService orderProcessingService;
+
+    @Mock
+    private OrderJobService orderJobService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderIdempotencyProperties properties = new OrderIdempotencyProperties();
+    private final OrderJobProperties jobProperties = new OrderJobProperties();
+    private final AtomicLong now = new AtomicLong();
+
+    private OrderIdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        properties.setTtl(Duration.ofMinutes(10));
+        jobProperties.setTtl(Duration.ofMinutes(5));
+        service = new OrderIdempotencyService(orderProcessingService, orderJobService, properties, jobProperties,
+            meterRegistry, now::get);
+    }
+
+    @Test
+    void shouldReplayResponseForSameKey() {
+        when(orderProcessingService.processOrder(1L)).thenReturn(new OrderDto(1L));
+
+        OrderDto first = service.processOrder(1L, "retry-1");
+        OrderDto retry = service.processOrder(1L, "retry-1");
+
+        assertThat(retry).isEqualTo(first);
+        verify(orderProcessingService, times(1)).processOrder(1L);
+        assertThat(meterRegistry.counter("orders.idempotency.replayed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldProcessAgainForAnotherKeyOrWithoutKey() {
+        when(orderProcessingService.processOrder(1L)).thenReturn(new OrderDto(1L));
+
+        service.processOrder(1L, "retry-1");
+        service.processOrder(1L, "retry-2");
+        service.processOrder(1L, null);
+        service.processOrder(1L, null);
+
+        verify(orderProcessingService, times(4)).processOrder(1L);
+    }
+
+    @Test
+    void shouldProcessAgainOnceResponseHasExpired() {
+        when(orderProcessingService.processOrder(1L)).thenReturn(new OrderDto(1L));
+
+        service.processOrder(1L, "retry-1");
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        service.processOrder(1L, "retry-1");
+
+        verify(orderProcessingService, times(2)).processOrder(1L);
+    }
+
+    @Test
+    void shouldEvictOldestResponsesBeyondMaxEntries() {
+        properties.setMaxEntries(1);
+        when(orderProcessingService.processOrder(anyLong())).thenAnswer(invocation -> new OrderDto(invocation.getArgument(0)));
+
+        service.processOrder(1L, "retry-1");
+        service.processOrder(2L, "retry-1");
+        service.processOrder(1L, "retry-1");
+
+        verify(orderProcessingService, times(2)).processOrder(1L);
+    }
+
+    @Test
+    void shouldNotStoreFailures() {
+        when(orderProcessingService.processOrder(1L))
+            .thenThrow(new IllegalStateException("boom"))
+            .thenReturn(new OrderDto(1L));
+
+        assertThatThrownBy(() -> service.processOrder(1L, "retry-1")).hasMessage("boom");
+        OrderDto retry = service.processOrder(1L, "retry-1");
+
+        assertThat(retry.getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldCollapseConcurrentRequestsForSameOrder() throws Exception {
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderProcessingService.processOrder(1L)).thenAnswer(invocation -> {
+            processing.countDown();
+            release.await();
+            return new OrderDto(1L);
+        });
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<OrderDto> first = clients.submit(() -> service.processOrder(1L, "retry-1"));
+            assertThat(processing.await(1, TimeUnit.SECONDS)).isTrue();
+            Future<OrderDto> duplicate = clients.submit(() -> service.processOrder(1L, "retry-2"));
+            while (meterRegistry.counter("orders.idempotency.joined").count() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(duplicate.get(1, TimeUnit.SECONDS)).isEqualTo(first.get(1, TimeUnit.SECONDS));
+            verify(orderProcessingService, times(1)).processOrder(1L);
+        } finally {
+            clients.shutdownNow();
+        }
+        assertThat(service.processOrder(1L, "retry-2").getId()).isEqualTo(1L);
+        verify(orderProcessingService, times(1)).processOrder(1L);
+    }
+
+    @Test
+    void shouldReturnTheJobAlreadySubmittedForSameKey() {
+        OrderJobResponse queued = job("job-1", OrderJobStatus.QUEUED);
+        OrderJobResponse completed = job("job-1", OrderJobStatus.COMPLETED);
+        when(orderJobService.submit(1L)).thenReturn(queued);
+        when(orderJobService.getJob("job-1")).thenReturn(completed);
+
+        assertThat(service.submitOrder(1L, "retry-1")).isEqualTo(queued);
+        assertThat(service.submitOrder(1L, "retry-1")).isEqualTo(completed);
+
+        verify(orderJobService, times(1)).submit(1L);
+        assertThat(meterRegistry.counter("orders.idempotency.replayed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSubmitAgainOnceTheJobCanNoLongerBePolled() {
+        when(orderJobService.submit(1L))
+            .thenReturn(job("job-1", OrderJobStatus.QUEUED))
+            .thenReturn(job("job-2", OrderJobStatus.QUEUED));
+
+        service.submitOrder(1L, "retry-1");
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertThat(service.submitOrder(1L, "retry-1").jobId()).isEqualTo("job-2");
+        verify(orderJobService, never()).getJob(anyString());
+    }
+
+    @Test
+    void shouldSubmitAgainForAnotherKeyOrWithoutKey() {
+        when(orderJobService.submit(1L)).thenReturn(job("job-1", OrderJobStatus.QUEUED));
+
+        service.submitOrder(1L, "retry-1");
+        service.submitOrder(1L, "retry-2");
+        service.submitOrder(1L, null);
+
+        verify(orderJobService, times(3)).submit(1L);
+        verify(orderJobService, never()).getJob(anyString());
+    }
+
+    private static OrderJobResponse job(String jobId, OrderJobStatus status) {
+        return new OrderJobResponse(jobId, 1L, status, null, Instant.EPOCH, null);
+    }
+}
@@ -0,0 +1,123 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.OrderJobProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderDto;
+import com.nimbleways.springboilerplate.dto.order.OrderJobResponse;
+import com.nimbleways.springboilerplate.dto.order.OrderJobStatus;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingResult;
+import com.nimbleways.springboilerplate.exceptions.OrderJobNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.OrderJobRejectedException;
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderJobServiceTest {
+
+    @Mock
+    private OrderProcessingService orderProcessingService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderJobProperties properties = new OrderJobProperties();
+
+    private OrderJobService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.stop();
+    }
+
+    @Test
+    void shouldRunJobInTheBackground() throws InterruptedException {
+        service = new OrderJobService(orderProcessingService, properties, meterRegistry);
+        when(orderProcessingService.processOrder(1L)).thenReturn(new OrderDto(1L));
+
+        OrderJobResponse submitted = service.submit(1L);
+        OrderJobResponse completed = awaitCompletion(submitted.jobId());
+
+        assertThat(submitted.orderId()).isEqualTo(1L);
+        assertThat(completed.result()).isEqualTo(OrderProcessingResult.processed(1L));
+        assertThat(completed.finishedAt()).isNotNull();
+        assertThat(meterRegistry.timer("orders.jobs.run").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReportMissingAndFailedOrders() throws InterruptedException {
+        service = new OrderJobService(orderProcessingService, properties, meterRegistry);
+        when(orderProcessingService.processOrder(404L)).thenThrow(new OrderNotFoundException(404L));
+        when(orderProcessingService.processOrder(2L)).thenThrow(new IllegalStateException("boom"));
+
+        OrderJobResponse missing = awaitCompletion(service.submit(404L).jobId());
+        OrderJobResponse failed = awaitCompletion(service.submit(2L).jobId());
+
+        assertThat(missing.result()).isEqualTo(OrderProcessingResult.notFound(404L));
+        assertThat(failed.result()).isEqualTo(OrderProcessingResult.failed(2L, "boom"));
+    }
+
+    @Test
+    void shouldRejectJobsWhenQueueIsFull() throws InterruptedException {
+        properties.setWorkers(1);
+        properties.setQueueCapacity(1);
+        service = new OrderJobService(orderProcessingService, properties, meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderProcessingService.processOrder(anyLong())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return new OrderDto(invocation.getArgument(0));
+        });
+
+        service.submit(1L);
+        assertThat(running.await(1, TimeUnit.SECONDS)).isTrue();
+        OrderJobResponse queued = service.submit(2L);
+
+        assertThat(queued.status()).isEqualTo(OrderJobStatus.QUEUED);
+        assertThatThrownBy(() -> service.submit(3L)).isInstanceOf(OrderJobRejectedException.class);
+        assertThat(meterRegistry.counter("orders.jobs.rejected").count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void shouldEvictFinishedJobsAfterTtl() throws InterruptedException {
+        properties.setTtl(Duration.ZERO);
+        service = new OrderJobService(orderProcessingService, properties, meterRegistry);
+        when(orderProcessingService.processOrder(1L)).thenReturn(new OrderDto(1L));
+        String jobId = service.submit(1L).jobId();
+        awaitCompletion(jobId);
+
+        service.evictExpired();
+
+        assertThatThrownBy(() -> service.getJob(jobId)).isInstanceOf(OrderJobNotFoundException.class);
+    }
+
+    @Test
+    void shouldThrowWhenJobIsUnknown() {
+        service = new OrderJobService(orderProcessingService, properties, meterRegistry);
+
+        assertThatThrownBy(() -> service.getJob("unknown")).isInstanceOf(OrderJobNotFoundException.class);
+    }
+
+    private OrderJobResponse awaitCompletion(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        OrderJobResponse job = service.getJob(jobId);
+        while (job.status() != OrderJobStatus.COMPLETED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = service.getJob(jobId);
+        }
+        assertThat(job.status()).isEqualTo(OrderJobStatus.COMPLETED);
+        return job;
+    }
+}
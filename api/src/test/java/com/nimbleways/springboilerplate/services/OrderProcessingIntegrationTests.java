@@ -0,0 +1,141 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    // keeps the product change log poll out of the statement counts
+    "products.cache.poll-interval=1h",
+    // and the order queue and notification outbox polls
+    "orders.queue.workers=0",
+    "notifications.outbox.poll-interval=1h"
+})
+class OrderProcessingIntegrationTests {
+
+    private static final int ORDER_SIZE = 200;
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldLoadOrderAndItemsInOneStatement() {
+        Long orderId = createOrder(ORDER_SIZE);
+        statistics.clear();
+
+        int loadedItems = transactionTemplate.execute(status ->
+            orderRepository.findWithItemsById(orderId).orElseThrow().getItems().size());
+
+        assertThat(loadedItems).isEqualTo(ORDER_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotReloadItemsWhileProcessing() {
+        Long orderId = createOrder(ORDER_SIZE);
+        statistics.clear();
+
+        orderProcessingService.processOrder(orderId);
+
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        // stock of the items, then reference data of the products missing from the cache; the stock updates go in one
+        // JDBC batch, outside of the Hibernate statistics
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(productRepository.findAll()).extracting(Product::getAvailable).containsOnly(9);
+    }
+
+    @Test
+    void shouldSendTheStockUpdatesOfAnOrderAsOneJdbcBatch() {
+        Long orderId = createOrder(ORDER_SIZE);
+        statistics.clear();
+        clearInvocations(jdbcTemplate);
+
+        orderProcessingService.processOrder(orderId);
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        // one statement per item would not show in the Hibernate statistics when sent through JDBC
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, never()).update(anyString(), (Object[]) any());
+    }
+
+    @Test
+    void shouldReadOnlyStockOnceProductsAreCached() {
+        Long orderId = createOrder(ORDER_SIZE);
+        orderProcessingService.processOrder(orderId);
+        statistics.clear();
+
+        orderProcessingService.processOrder(orderId);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(productRepository.findAll()).extracting(Product::getAvailable).containsOnly(8);
+    }
+
+    private Long createOrder(int size) {
+        return transactionTemplate.execute(status -> {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+            List<Product> products = IntStream.range(0, size)
+                .mapToObj(index -> createProduct("product " + index))
+                .collect(Collectors.toList());
+            Set<Product> items = new HashSet<>(productRepository.saveAll(products));
+            return orderRepository.save(new Order(null, items)).getId();
+        });
+    }
+
+    private Product createProduct(String name) {
+        Product product = new Product();
+        product.setType(ProductType.NORMAL);
+        product.setName(name);
+        product.setAvailable(10);
+        product.setLeadTime(5);
+        return product;
+    }
+}
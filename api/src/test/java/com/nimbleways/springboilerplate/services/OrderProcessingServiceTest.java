@@ -1,5 +1,7 @@
 package com.nimbleways.springboilerplate.services;
 
+import com.nimbleways.springboilerplate.config.OrderProcessingProperties;
+import com.nimbleways.springboilerplate.config.OrderTraceProperties;
 import com.nimbleways.springboilerplate.dto.order.OrderDto;
 import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
@@ -7,10 +9,16 @@ import com.nimbleways.springboilerplate.entities.ProductType;
 import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
 import com.nimbleways.springboilerplate.exceptions.ProductProcessorNotFoundException;
 import com.nimbleways.springboilerplate.mappers.OrderMapper;
+import com.nimbleways.springboilerplate.repositories.OrderItemStockLevel;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import com.nimbleways.springboilerplate.services.trace.OrderTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -32,12 +40,41 @@ class OrderProcessingServiceTest {
     @Mock
     private ProductService productServiceSeasonal;
 
+    @Mock
+    private ProductService productServiceExpirable;
+
+    @Mock
+    private StockConcurrencyStrategy stockConcurrencyStrategy;
+
     @Mock
     private OrderMapper orderMapper;
 
-    @InjectMocks
+    @Mock
+    private ProductReferenceCache productReferenceCache;
+
+    @Mock
+    private NotificationPublisher notificationPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ProductProcessorRegistry registry;
+
     private OrderProcessingService service;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(productServiceNormal.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.NORMAL);
+        lenient().when(productServiceSeasonal.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.SEASONAL);
+        lenient().when(productServiceExpirable.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.EXPIRABLE);
+        for (ProductService productService : List.of(productServiceNormal, productServiceSeasonal, productServiceExpirable)) {
+            lenient().when(productService.decide(any(), any())).thenAnswer(invocation -> ProductDecision.decrement(invocation.getArgument(0)));
+        }
+        registry = new ProductProcessorRegistry(
+            List.of(productServiceNormal, productServiceSeasonal, productServiceExpirable),
+            new SimpleMeterRegistry()
+        );
+    }
+
     @Test
     void shouldProcessSimpleOrder() {
         Long orderId = 1L;
@@ -45,39 +82,56 @@ class OrderProcessingServiceTest {
         Order order = createOrder(orderId, product);
         OrderDto orderDto = new OrderDto(orderId);
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(productServiceNormal.supports(ProductType.NORMAL)).thenReturn(true);
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
         when(orderMapper.toDto(order)).thenReturn(orderDto);
 
         service = new OrderProcessingService(
             orderRepository,
-            List.of(productServiceNormal),
-            orderMapper
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
         );
 
         OrderDto result = service.processOrder(orderId);
 
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(orderId);
-        verify(orderRepository).findById(orderId);
-        verify(productServiceNormal).processProduct(product);
+        verify(orderRepository).findWithItemsById(orderId);
+        verify(productServiceNormal).decide(eq(product), any());
         verify(orderMapper).toDto(order);
+        assertThat(meterRegistry.get(OrderProcessingService.PROCESS_TIMER).tag("outcome", "PROCESSED").timer().count())
+            .isEqualTo(1);
     }
 
     @Test
     void shouldThrowExceptionWhenOrderNotFound() {
         Long orderId = 999L;
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.empty());
 
         service = new OrderProcessingService(
             orderRepository,
-            List.of(productServiceNormal),
-            orderMapper
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
         );
 
         assertThatThrownBy(() -> service.processOrder(orderId))
             .isInstanceOf(OrderNotFoundException.class)
             .hasMessageContaining("Order not found with id: 999");
+        assertThat(meterRegistry.get(OrderProcessingService.PROCESS_TIMER).tag("outcome", "NOT_FOUND").timer().count())
+            .isEqualTo(1);
     }
 
     @Test
@@ -88,46 +142,156 @@ class OrderProcessingServiceTest {
         Order order = createOrder(orderId, product1, product2);
         OrderDto orderDto = new OrderDto(orderId);
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        
-        lenient().when(productServiceNormal.supports(ProductType.NORMAL)).thenReturn(true);
-        lenient().when(productServiceNormal.supports(ProductType.SEASONAL)).thenReturn(false);
-        
-        lenient().when(productServiceSeasonal.supports(ProductType.NORMAL)).thenReturn(false);
-        lenient().when(productServiceSeasonal.supports(ProductType.SEASONAL)).thenReturn(true);
-        
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
         when(orderMapper.toDto(order)).thenReturn(orderDto);
 
         service = new OrderProcessingService(
             orderRepository,
-            List.of(productServiceNormal, productServiceSeasonal),
-            orderMapper
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
+        );
+
+        service.processOrder(orderId);
+
+        verify(productServiceNormal).decide(eq(product1), any());
+        verify(productServiceSeasonal).decide(eq(product2), any());
+        verify(productServiceExpirable, never()).decide(any(), any());
+    }
+
+    @Test
+    void shouldPrepareItemsInProductIdOrder() {
+        Long orderId = 6L;
+        Product product1 = createProduct(ProductType.NORMAL);
+        product1.setId(30L);
+        Product product2 = createProduct(ProductType.NORMAL);
+        product2.setId(10L);
+        Product product3 = createProduct(ProductType.SEASONAL);
+        product3.setId(20L);
+        Order order = createOrder(orderId, product1, product2, product3);
+
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
+
+        service = new OrderProcessingService(
+            orderRepository,
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
+        );
+
+        service.processOrder(orderId);
+
+        InOrder inOrder = inOrder(stockConcurrencyStrategy, productServiceNormal, productServiceSeasonal);
+        inOrder.verify(stockConcurrencyStrategy).prepare(List.of(product2, product3, product1));
+        inOrder.verify(productServiceNormal).decide(eq(product2), any());
+        inOrder.verify(productServiceSeasonal).decide(eq(product3), any());
+        inOrder.verify(productServiceNormal).decide(eq(product1), any());
+    }
+
+    @Test
+    void shouldApplyDecisionsAtOnceAndPublishTheirNotifications() {
+        Long orderId = 7L;
+        Product product1 = createProduct(ProductType.NORMAL);
+        product1.setId(10L);
+        Product product2 = createProduct(ProductType.SEASONAL);
+        product2.setId(20L);
+        Order order = createOrder(orderId, product1, product2);
+        ProductDecision decrement = ProductDecision.decrement(product1);
+        ProductDecision clear = ProductDecision.clear(product2, Notification.outOfStock("Test Product"));
+
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
+        when(productServiceSeasonal.decide(eq(product2), any())).thenReturn(clear);
+
+        service = new OrderProcessingService(
+            orderRepository,
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
         );
 
         service.processOrder(orderId);
 
-        verify(productServiceNormal).processProduct(product1);
-        verify(productServiceSeasonal).processProduct(product2);
+        verify(stockConcurrencyStrategy).apply(List.of(decrement, clear));
+        verify(notificationPublisher).publishAll(List.of(Notification.outOfStock("Test Product")));
     }
 
     @Test
-    void shouldThrowExceptionWhenNoProductProcessorFound() {
+    void shouldDecideAgainWhenLastUnitIsTakenConcurrently() {
+        Long orderId = 8L;
+        Product product = createProduct(ProductType.NORMAL);
+        Order order = createOrder(orderId, product);
+        Notification delay = Notification.delay(5, "Test Product");
+
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
+        when(productServiceNormal.decide(eq(product), any())).thenAnswer(invocation -> product.getAvailable() > 0
+            ? ProductDecision.decrement(product)
+            : ProductDecision.notify(product, delay));
+        when(stockConcurrencyStrategy.apply(any())).thenAnswer(invocation -> {
+            product.setAvailable(0);
+            return List.of(product);
+        });
+
+        service = new OrderProcessingService(
+            orderRepository,
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
+        );
+
+        service.processOrder(orderId);
+
+        verify(productServiceNormal, times(2)).decide(eq(product), any());
+        verify(notificationPublisher).publishAll(List.of(delay));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenProductHasNoType() {
         Long orderId = 3L;
-        Product product = createProduct(ProductType.EXPIRABLE);
+        Product product = createProduct(null);
         Order order = createOrder(orderId, product);
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(productServiceNormal.supports(any())).thenReturn(false);
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
 
         service = new OrderProcessingService(
             orderRepository,
-            List.of(productServiceNormal),
-            orderMapper
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
         );
 
         assertThatThrownBy(() -> service.processOrder(orderId))
             .isInstanceOf(ProductProcessorNotFoundException.class)
-            .hasMessageContaining("No processor found for product type: EXPIRABLE");
+            .hasMessageContaining("No processor found for product type: null");
     }
 
     @Test
@@ -136,20 +300,81 @@ class OrderProcessingServiceTest {
         Order order = createOrder(orderId);
         OrderDto orderDto = new OrderDto(orderId);
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(orderId)).thenReturn(Optional.of(order));
         when(orderMapper.toDto(order)).thenReturn(orderDto);
 
         service = new OrderProcessingService(
             orderRepository,
-            List.of(productServiceNormal),
-            orderMapper
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
         );
 
         OrderDto result = service.processOrder(orderId);
 
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(orderId);
-        verify(productServiceNormal, never()).processProduct(any());
+        verify(productServiceNormal, never()).decide(any(), any());
+    }
+
+    @Test
+    void shouldReadOnlyStockWhenProductCacheIsEnabled() {
+        Long orderId = 11L;
+        Product product = createProduct(ProductType.NORMAL);
+        List<OrderItemStockLevel> stockLevels = List.of(new ItemStockLevel(orderId, 1L, 10, 0L));
+
+        when(productReferenceCache.isEnabled()).thenReturn(true);
+        when(orderRepository.findItemStockLevelsById(orderId)).thenReturn(stockLevels);
+        when(productReferenceCache.products(stockLevels)).thenReturn(List.of(product));
+        when(orderMapper.toDto(any())).thenReturn(new OrderDto(orderId));
+
+        service = new OrderProcessingService(
+            orderRepository,
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
+        );
+
+        service.processOrder(orderId);
+
+        verify(productServiceNormal).decide(eq(product), any());
+        verify(orderRepository, never()).findWithItemsById(any());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenOrderNotFoundWithProductCache() {
+        Long orderId = 999L;
+        when(productReferenceCache.isEnabled()).thenReturn(true);
+        when(orderRepository.findItemStockLevelsById(orderId)).thenReturn(List.of());
+
+        service = new OrderProcessingService(
+            orderRepository,
+            registry,
+            stockConcurrencyStrategy,
+            orderMapper,
+            productReferenceCache,
+            notificationPublisher,
+            new StockMetrics(meterRegistry),
+            new OrderProcessingProperties(),
+            new OrderTracer(new OrderTraceProperties(), meterRegistry),
+            meterRegistry
+        );
+
+        assertThatThrownBy(() -> service.processOrder(orderId))
+            .isInstanceOf(OrderNotFoundException.class);
+        verify(productReferenceCache, never()).products(any());
     }
 
     private Product createProduct(ProductType type) {
@@ -170,4 +395,8 @@ class OrderProcessingServiceTest {
         order.setItems(items);
         return order;
     }
-}
\ No newline at end of file
+
+    private record ItemStockLevel(Long getOrderId, Long getId, Integer getAvailable, Long getVersion)
+        implements OrderItemStockLevel {
+    }
+}
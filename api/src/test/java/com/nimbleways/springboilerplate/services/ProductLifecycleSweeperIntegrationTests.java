@@ -0,0 +1,186 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.ProductLifecycleProperties;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductLifecycleCandidate;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+    "products.lifecycle.sweep-on-startup=false",
+    "products.lifecycle.batch-size=2",
+    "notifications.delivery=SYNC",
+    "notifications.coalescing.enabled=false"
+})
+class ProductLifecycleSweeperIntegrationTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Autowired
+    private ProductLifecycleSweeper sweeper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockConcurrencyStrategy stockConcurrencyStrategy;
+
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
+    @Autowired
+    private ProductLifecycleProperties lifecycleProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void shouldClearStockOfExpiredAndSeasonEndedProductsOnly() {
+        productRepository.save(expirable("expired yesterday", 5, TODAY.minusDays(1)));
+        productRepository.save(expirable("expiring today", 3, TODAY));
+        productRepository.save(expirable("expired long ago", 7, TODAY.minusDays(100)));
+        productRepository.save(expirable("already empty", 0, TODAY.minusDays(1)));
+        productRepository.save(expirable("expiring tomorrow", 4, TODAY.plusDays(1)));
+        productRepository.save(seasonal("season ended", 6, TODAY.minusDays(60), TODAY.minusDays(1)));
+        productRepository.save(seasonal("season ending today", 2, TODAY.minusDays(60), TODAY));
+        productRepository.save(seasonal("season to come", 9, TODAY.plusDays(10), TODAY.plusDays(60)));
+        productRepository.save(normal("normal", 8));
+
+        int cleared = sweeper.sweep(TODAY);
+
+        assertThat(cleared).isEqualTo(4);
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of(
+            "expired yesterday", 0,
+            "expiring today", 0,
+            "expired long ago", 0,
+            "already empty", 0,
+            "expiring tomorrow", 4,
+            "season ended", 0,
+            "season ending today", 2,
+            "season to come", 9,
+            "normal", 8
+        ));
+        verify(notificationService).sendExpirationNotification("expired yesterday", TODAY.minusDays(1));
+        verify(notificationService).sendExpirationNotification("expiring today", TODAY);
+        verify(notificationService).sendExpirationNotification("expired long ago", TODAY.minusDays(100));
+        verify(notificationService, never()).sendExpirationNotification("already empty", TODAY.minusDays(1));
+        verify(notificationService).sendOutOfStockNotification("season ended");
+        verify(notificationService, never()).sendOutOfStockNotification("season to come");
+    }
+
+    @Test
+    void shouldFindNothingLeftToClearOnTheSecondSweep() {
+        productRepository.save(expirable("expired yesterday", 5, TODAY.minusDays(1)));
+        sweeper.sweep(TODAY);
+
+        int cleared = sweeper.sweep(TODAY);
+
+        assertThat(cleared).isZero();
+        assertThat(productRepository.findFirstByName("expired yesterday").orElseThrow().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldLeaveOutProductsEmptiedSinceTheyWereRead() {
+        productRepository.save(expirable("expired yesterday", 5, TODAY.minusDays(1)));
+        Long emptiedId = productRepository.save(expirable("emptied meanwhile", 3, TODAY.minusDays(1))).getId();
+        ProductRepository readingStaleStock = mock(ProductRepository.class, delegatesTo(productRepository));
+        doAnswer(invocation -> {
+            List<ProductLifecycleCandidate> found = productRepository.findExpiredWithStock(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            jdbcTemplate.update("update product_stock set available = 0 where product_id = ?", emptiedId);
+            return found;
+        }).when(readingStaleStock).findExpiredWithStock(eq(TODAY), anyLong(), any(Pageable.class));
+        ProductLifecycleSweeper racingSweeper = new ProductLifecycleSweeper(readingStaleStock, stockConcurrencyStrategy,
+            notificationPublisher, lifecycleProperties, transactionTemplate, new SimpleMeterRegistry());
+
+        int cleared = racingSweeper.sweep(TODAY);
+
+        assertThat(cleared).isEqualTo(1);
+        verify(notificationService).sendExpirationNotification("expired yesterday", TODAY.minusDays(1));
+        verify(notificationService, never()).sendExpirationNotification("emptied meanwhile", TODAY.minusDays(1));
+    }
+
+    @Test
+    void shouldNotNotifyWhenNothingExpired() {
+        productRepository.save(expirable("expiring tomorrow", 4, TODAY.plusDays(1)));
+
+        sweeper.sweep(TODAY);
+
+        verify(notificationService, never()).sendExpirationNotification(anyString(), any());
+        verify(notificationService, never()).sendOutOfStockNotification(anyString());
+    }
+
+    private Map<String, Integer> availableByName() {
+        return productRepository.findAll().stream()
+            .collect(Collectors.toMap(Product::getName, Product::getAvailable));
+    }
+
+    private static Product expirable(String name, int available, LocalDate expiryDate) {
+        Product product = normal(name, available);
+        product.setType(ProductType.EXPIRABLE);
+        product.setExpiryDate(expiryDate);
+        return product;
+    }
+
+    private static Product seasonal(String name, int available, LocalDate seasonStart, LocalDate seasonEnd) {
+        Product product = normal(name, available);
+        product.setType(ProductType.SEASONAL);
+        product.setSeasonStartDate(seasonStart);
+        product.setSeasonEndDate(seasonEnd);
+        return product;
+    }
+
+    private static Product normal(String name, int available) {
+        Product product = new Product();
+        product.setType(ProductType.NORMAL);
+        product.setName(name);
+        product.setAvailable(available);
+        product.setLeadTime(5);
+        return product;
+    }
+}
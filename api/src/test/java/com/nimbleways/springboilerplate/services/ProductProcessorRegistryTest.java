@@ -0,0 +1,97 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.exceptions.ProductProcessorNotFoundException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductProcessorRegistryTest {
+
+    @Mock
+    private ProductService productServiceNormal;
+
+    @Mock
+    private ProductService productServiceSeasonal;
+
+    @Mock
+    private ProductService productServiceExpirable;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(productServiceNormal.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.NORMAL);
+        lenient().when(productServiceSeasonal.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.SEASONAL);
+        lenient().when(productServiceExpirable.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.EXPIRABLE);
+    }
+
+    @Test
+    void shouldResolveProcessorOfEachType() {
+        ProductProcessorRegistry registry = new ProductProcessorRegistry(
+            List.of(productServiceNormal, productServiceSeasonal, productServiceExpirable),
+            meterRegistry
+        );
+
+        assertThat(registry.processorFor(ProductType.NORMAL)).isSameAs(productServiceNormal);
+        assertThat(registry.processorFor(ProductType.SEASONAL)).isSameAs(productServiceSeasonal);
+        assertThat(registry.processorFor(ProductType.EXPIRABLE)).isSameAs(productServiceExpirable);
+    }
+
+    @Test
+    void shouldFailWhenTypeHasNoProcessor() {
+        List<ProductService> productServices = List.of(productServiceNormal, productServiceSeasonal);
+
+        assertThatThrownBy(() -> new ProductProcessorRegistry(productServices, meterRegistry))
+            .isInstanceOf(ProductProcessorNotFoundException.class)
+            .hasMessageContaining("No processor found for product type: EXPIRABLE");
+    }
+
+    @Test
+    void shouldFailWhenTypeHasSeveralProcessors() {
+        ProductService otherNormal = mock(ProductService.class);
+        when(otherNormal.supports(any())).thenAnswer(invocation -> invocation.getArgument(0) == ProductType.NORMAL);
+        List<ProductService> productServices = List.of(productServiceNormal, otherNormal, productServiceSeasonal, productServiceExpirable);
+
+        assertThatThrownBy(() -> new ProductProcessorRegistry(productServices, meterRegistry))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Several processors found for product type NORMAL");
+    }
+
+    @Test
+    void shouldRecordCallsPerType() {
+        ProductProcessorRegistry registry = new ProductProcessorRegistry(
+            List.of(productServiceNormal, productServiceSeasonal, productServiceExpirable),
+            meterRegistry
+        );
+        Product product = new Product();
+        product.setType(ProductType.SEASONAL);
+
+        LocalDate today = LocalDate.now();
+
+        registry.decide(product, today);
+        registry.decide(product, today);
+
+        verify(productServiceSeasonal, times(2)).decide(product, today);
+        assertThat(timer(ProductType.SEASONAL).count()).isEqualTo(2);
+        assertThat(timer(ProductType.NORMAL).count()).isZero();
+    }
+
+    private Timer timer(ProductType type) {
+        return meterRegistry.get(ProductProcessorRegistry.PROCESSING_TIMER).tag("type", type.name()).timer();
+    }
+}
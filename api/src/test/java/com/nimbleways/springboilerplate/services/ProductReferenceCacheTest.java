@@ -0,0 +1,199 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.config.ProductCacheProperties;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductCatalogChange;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductCatalogChangeRepository;
+import com.nimbleways.springboilerplate.repositories.ProductReference;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockLevel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductReferenceCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalogChangeRepository changeRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+    private final ProductCacheProperties properties = new ProductCacheProperties();
+
+    private ProductReferenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties.setPollInterval(Duration.ofHours(1));
+        lenient().when(productRepository.findReferencesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> productIds = invocation.getArgument(0);
+            return productIds.stream().map(ProductReferenceCacheTest::reference).collect(Collectors.toList());
+        });
+        lenient().when(changeRepository.findLastId()).thenReturn(0L);
+        cache = new ProductReferenceCache(productRepository, changeRepository, transactionTemplate, properties,
+            meterRegistry, now::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.stop();
+    }
+
+    @Test
+    void shouldLoadMissingProductsOnceThenServeThemFromCache() {
+        List<Product> first = cache.products(List.of(stock(1L, 10), stock(2L, 5)));
+        List<Product> second = cache.products(List.of(stock(1L, 9)));
+
+        assertThat(first).extracting(Product::getName).containsExactly("product 1", "product 2");
+        assertThat(second).extracting(Product::getAvailable).containsExactly(9);
+        verify(productRepository, times(1)).findReferencesByIdIn(anyCollection());
+        assertThat(meterRegistry.get("products.cache.gets").tag("result", "miss").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("products.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheReferencesLoadedBeforeTheirInvalidation() {
+        when(productRepository.findReferencesByIdIn(anyCollection())).thenAnswer(invocation -> {
+            cache.recordChanges(List.of(1L));
+            return List.of(reference(1L));
+        });
+
+        List<Product> products = cache.products(List.of(stock(1L, 10)));
+
+        assertThat(products).extracting(Product::getName).containsExactly("product 1");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedProductsBeyondMaxSize() {
+        properties.setMaxSize(2);
+
+        cache.products(List.of(stock(1L, 1), stock(2L, 1), stock(3L, 1)));
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWarmUpMostOrderedProducts() {
+        when(productRepository.findMostOrderedIds(any())).thenReturn(List.of(4L, 5L));
+
+        cache.start();
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictProductsListedInChangeLog() {
+        when(productRepository.findMostOrderedIds(any())).thenReturn(List.of());
+        cache.start();
+        cache.products(List.of(stock(1L, 10), stock(2L, 5)));
+        when(changeRepository.findChangesAfter(eq(0L), any())).thenReturn(List.of(change(1L, 2L)));
+
+        cache.poll();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("products.cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWaitForMissingChangeIdsBeforeSkippingThem() {
+        when(productRepository.findMostOrderedIds(any())).thenReturn(List.of());
+        cache.start();
+        when(changeRepository.findChangesAfter(eq(0L), any())).thenReturn(List.of(change(2L, 1L)));
+
+        cache.poll();
+        now.addAndGet(ProductReferenceCache.COMMIT_GRACE_NANOS);
+        cache.poll();
+        cache.poll();
+
+        verify(changeRepository, times(2)).findChangesAfter(eq(0L), any());
+        verify(changeRepository).findChangesAfter(eq(2L), any());
+    }
+
+    @Test
+    void shouldNotEvictAgainProductsOfChangesAlreadyAppliedPastAMissingId() {
+        when(productRepository.findMostOrderedIds(any())).thenReturn(List.of());
+        cache.start();
+        when(changeRepository.findChangesAfter(eq(0L), any())).thenReturn(List.of(change(2L, 1L)));
+        cache.poll();
+        cache.products(List.of(stock(1L, 10)));
+
+        cache.poll();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.products(List.of(stock(1L, 10)))).hasSize(1);
+        verify(productRepository, times(1)).findReferencesByIdIn(anyCollection());
+    }
+
+    @Test
+    void shouldApplyAMissingChangeCommittedWithinTheGracePeriod() {
+        when(productRepository.findMostOrderedIds(any())).thenReturn(List.of());
+        cache.start();
+        when(changeRepository.findChangesAfter(eq(0L), any()))
+            .thenReturn(List.of(change(2L, 1L)))
+            .thenReturn(List.of(change(1L, 2L), change(2L, 1L)));
+        cache.poll();
+        cache.products(List.of(stock(1L, 10), stock(2L, 5)));
+
+        cache.poll();
+        cache.poll();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("products.cache.invalidations").counter().count()).isEqualTo(1);
+        verify(changeRepository).findChangesAfter(eq(2L), any());
+    }
+
+    private static ProductStockLevel stock(Long id, int available) {
+        return new ProductStockLevel() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getAvailable() {
+                return available;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+        };
+    }
+
+    private static ProductReference reference(Long id) {
+        return new ProductReference(id, "product " + id, ProductType.NORMAL, 5, null, null, null, null, null);
+    }
+
+    private static ProductCatalogChange change(Long id, Long productId) {
+        return new ProductCatalogChange(id, productId, Instant.now());
+    }
+}
@@ -0,0 +1,106 @@
+package com.nimbleways.springboilerplate.services;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.entities.SellableWindow;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "products.lifecycle.sweep-on-startup=false",
+    "products.lifecycle.backfill-on-startup=false",
+    "products.lifecycle.batch-size=2"
+})
+class SellableWindowBackfillIntegrationTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Autowired
+    private SellableWindowBackfill backfill;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void shouldKeepWindowInSyncWhenDatesChange() {
+        Product product = productRepository.save(expirable("yaourt", TODAY.plusDays(5)));
+        assertThat(product.getSellableUntil()).isEqualTo(TODAY.plusDays(4));
+
+        product.setExpiryDate(TODAY.plusDays(10));
+        productRepository.save(product);
+
+        Product reloaded = productRepository.findFirstByName("yaourt").orElseThrow();
+        assertThat(reloaded.getSellableFrom()).isEqualTo(SellableWindow.ALWAYS_FROM);
+        assertThat(reloaded.getSellableUntil()).isEqualTo(TODAY.plusDays(9));
+    }
+
+    @Test
+    void shouldFillInMissingWindows() {
+        insertWithoutWindow("expired", ProductType.EXPIRABLE, TODAY.minusDays(1), null, null);
+        insertWithoutWindow("fresh", ProductType.EXPIRABLE, TODAY.plusDays(3), null, null);
+        insertWithoutWindow("in season", ProductType.SEASONAL, null, TODAY.minusDays(10), TODAY.plusDays(10));
+        insertWithoutWindow("plain", ProductType.NORMAL, null, null, null);
+
+        int filled = backfill.backfill();
+
+        assertThat(filled).isEqualTo(4);
+        assertThat(productRepository.findAll()).allSatisfy(product -> assertThat(product.getSellableFrom()).isNotNull());
+        assertThat(productRepository.findFirstByName("in season").orElseThrow().getSellableFrom()).isEqualTo(TODAY.minusDays(9));
+        assertThat(productRepository.findSellableOn(TODAY, 0L, PageRequest.of(0, 10)))
+            .extracting(Product::getName)
+            .containsExactlyInAnyOrder("fresh", "in season", "plain");
+        assertThat(backfill.backfill()).isZero();
+    }
+
+    private void insertWithoutWindow(String name, ProductType type, LocalDate expiryDate, LocalDate seasonStart,
+                                     LocalDate seasonEnd) {
+        jdbcTemplate.update("insert into products (lead_time, type, name, expiry_date, season_start_date, season_end_date) "
+                + "values (5, ?, ?, ?, ?, ?)",
+            type.name(), name, toSqlDate(expiryDate), toSqlDate(seasonStart), toSqlDate(seasonEnd));
+        jdbcTemplate.update("insert into product_stock (product_id, available, version) "
+            + "select id, 10, 0 from products where name = ?", name);
+    }
+
+    private static Date toSqlDate(LocalDate date) {
+        return date == null ? null : Date.valueOf(date);
+    }
+
+    private static Product expirable(String name, LocalDate expiryDate) {
+        Product product = new Product();
+        product.setType(ProductType.EXPIRABLE);
+        product.setName(name);
+        product.setAvailable(10);
+        product.setLeadTime(5);
+        product.setExpiryDate(expiryDate);
+        return product;
+    }
+}
@@ -0,0 +1,147 @@
+package com.nimbleways.springboilerplate.services.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbleways.springboilerplate.config.ProductExportProperties;
+import com.nimbleways.springboilerplate.dto.product.ProductAvailability;
+import com.nimbleways.springboilerplate.dto.product.ProductExportFormat;
+import com.nimbleways.springboilerplate.dto.product.ProductExportRow;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "products.lifecycle.sweep-on-startup=false",
+    "products.cache.poll-interval=1h"
+})
+class ProductExportIntegrationTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private ProductExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+        ProductExportProperties properties = new ProductExportProperties();
+        properties.setFetchSize(2);
+        Clock clock = Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        exportService = new ProductExportService(dataSource, transactionManager, objectMapper, properties,
+            new SimpleMeterRegistry(), clock);
+        productRepository.saveAll(List.of(
+            normal("chaise", 10),
+            normal("table, ronde", 0),
+            expirable("yaourt", 5, TODAY.minusDays(1)),
+            expirable("fromage", 3, TODAY.plusDays(10))));
+    }
+
+    @Test
+    void shouldExportEveryProductInIdOrderAsNdjson() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.export(ProductExportFormat.NDJSON, null, null, output);
+
+        List<ProductExportRow> rows = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readValue(line, ProductExportRow.class));
+        }
+        assertThat(exported).isEqualTo(4);
+        assertThat(rows).extracting(ProductExportRow::name).containsExactly("chaise", "table, ronde", "yaourt", "fromage");
+        assertThat(rows).extracting(ProductExportRow::availability).containsExactly(ProductAvailability.IN_STOCK,
+            ProductAvailability.OUT_OF_STOCK, ProductAvailability.NOT_SELLABLE, ProductAvailability.IN_STOCK);
+        assertThat(rows.get(3).expiryDate()).isEqualTo(TODAY.plusDays(10));
+    }
+
+    @Test
+    void shouldFilterOnTypeAndAvailabilityAsCsv() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        exportService.export(ProductExportFormat.CSV, ProductType.NORMAL, ProductAvailability.OUT_OF_STOCK, output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n")).satisfiesExactly(
+            header -> assertThat(header).startsWith("id,name,type,lead_time,available,availability"),
+            row -> assertThat(row).contains(",\"table, ronde\",NORMAL,5,0,OUT_OF_STOCK,,,"));
+    }
+
+    @Test
+    void shouldExportNotSellableProducts() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.export(ProductExportFormat.CSV, null, ProductAvailability.NOT_SELLABLE, output);
+
+        assertThat(exported).isEqualTo(1);
+        assertThat(output.toString(StandardCharsets.UTF_8)).contains("yaourt");
+    }
+
+    @Test
+    void shouldStopWhenTheOutputIsClosed() {
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThatThrownBy(() -> exportService.export(ProductExportFormat.NDJSON, null, null, closed))
+            .isInstanceOf(IOException.class)
+            .hasMessage("connection reset");
+    }
+
+    private static Product normal(String name, int available) {
+        Product product = new Product();
+        product.setType(ProductType.NORMAL);
+        product.setName(name);
+        product.setAvailable(available);
+        product.setLeadTime(5);
+        return product;
+    }
+
+    private static Product expirable(String name, int available, LocalDate expiryDate) {
+        Product product = normal(name, available);
+        product.setType(ProductType.EXPIRABLE);
+        product.setExpiryDate(expiryDate);
+        return product;
+    }
+}
@@ -2,29 +2,19 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 class ExpirableProductServiceImplTest {
 
-    @Mock
-    private ProductRepository productRepository;
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
 
-    @Mock
-    private NotificationService notificationService;
-
-    @InjectMocks
-    private ExpirableProductServiceImpl service;
+    private final ExpirableProductServiceImpl service = new ExpirableProductServiceImpl();
 
     @Test
     void shouldSupportExpirableProductType() {
@@ -35,66 +25,67 @@ class ExpirableProductServiceImplTest {
 
     @Test
     void shouldDecrementStockWhenProductIsValid() {
-        Product product = createExpirableProduct(10, LocalDate.now().plusDays(15));
+        Product product = createExpirableProduct(10, TODAY.plusDays(15));
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isEqualTo(9);
-        verify(productRepository).save(product);
-        verifyNoInteractions(notificationService);
+        assertThat(decision).isEqualTo(ProductDecision.decrement(product));
     }
 
     @Test
-    void shouldNotifyExpirationWhenProductIsExpired() {
-        LocalDate expirationDate = LocalDate.now().minusDays(2);
+    void shouldNotifyExpirationAndClearStockWhenProductIsExpired() {
+        LocalDate expirationDate = TODAY.minusDays(2);
         Product product = createExpirableProduct(5, expirationDate);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(notificationService).sendExpirationNotification("fromage", expirationDate);
-        verify(productRepository).save(product);
-        assertThat(product.getAvailable()).isZero();
+        assertThat(decision).isEqualTo(ProductDecision.clear(product, Notification.expiration("fromage", expirationDate)));
     }
 
     @Test
     void shouldNotifyExpirationWhenProductHasNoStock() {
-        Product product = createExpirableProduct(0, LocalDate.now().plusDays(10));
+        Product product = createExpirableProduct(0, TODAY.plusDays(10));
+
+        ProductDecision decision = service.decide(product, TODAY);
+
+        assertThat(decision).isEqualTo(ProductDecision.notify(product, Notification.expiration("fromage", product.getExpiryDate())));
+    }
+
+    @Test
+    void shouldNotClearStockAlreadyClearedBySweep() {
+        LocalDate expirationDate = TODAY.minusDays(2);
+        Product product = createExpirableProduct(0, expirationDate);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(notificationService).sendExpirationNotification(eq("fromage"), any());
-        assertThat(product.getAvailable()).isZero();
+        assertThat(decision).isEqualTo(ProductDecision.notify(product, Notification.expiration("fromage", expirationDate)));
     }
 
     @Test
     void shouldHandleProductExpiringToday() {
-        Product product = createExpirableProduct(10, LocalDate.now());
+        Product product = createExpirableProduct(10, TODAY);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(notificationService).sendExpirationNotification(eq("fromage"), any());
-        assertThat(product.getAvailable()).isZero();
+        assertThat(decision).isEqualTo(ProductDecision.clear(product, Notification.expiration("fromage", TODAY)));
     }
 
     @Test
     void shouldHandleProductExpiringTomorrow() {
-        Product product = createExpirableProduct(5, LocalDate.now().plusDays(1));
+        Product product = createExpirableProduct(5, TODAY.plusDays(1));
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isEqualTo(4);
-        verify(productRepository).save(product);
-        verifyNoInteractions(notificationService);
+        assertThat(decision).isEqualTo(ProductDecision.decrement(product));
     }
 
     @Test
-    void shouldHandleLastItemInStock() {
-        Product product = createExpirableProduct(1, LocalDate.now().plusDays(7));
+    void shouldDecrementLastItemInStock() {
+        Product product = createExpirableProduct(1, TODAY.plusDays(7));
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isZero();
-        verify(productRepository).save(product);
+        assertThat(decision).isEqualTo(ProductDecision.decrement(product));
     }
 
     private Product createExpirableProduct(int stock, LocalDate expirationDate) {
@@ -107,4 +98,4 @@ class ExpirableProductServiceImplTest {
         product.setExpiryDate(expirationDate);
         return product;
     }
-}
\ No newline at end of file
+}
@@ -2,27 +2,20 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.StockMutation;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 class NormalProductServiceImplTest {
 
-    @Mock
-    private ProductRepository productRepository;
-
-    @Mock
-    private NotificationService notificationService;
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
 
-    @InjectMocks
-    private NormalProductServiceImpl service;
+    private final NormalProductServiceImpl service = new NormalProductServiceImpl();
 
     @Test
     void shouldSupportNormalProductType() {
@@ -41,11 +34,10 @@ class NormalProductServiceImplTest {
     void shouldDecrementStockWhenProductIsAvailable() {
         Product product = createProduct(10);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isEqualTo(9);
-        verify(productRepository).save(product);
-        verifyNoInteractions(notificationService);
+        assertThat(decision).isEqualTo(ProductDecision.decrement(product));
+        assertThat(product.getAvailable()).isEqualTo(10);
     }
 
     @Test
@@ -53,30 +45,30 @@ class NormalProductServiceImplTest {
         Product product = createProduct(0);
         product.setLeadTime(15);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(notificationService).sendDelayNotification(15, "cable usb");
-        verify(productRepository, never()).save(any());
+        assertThat(decision.stockMutation()).isEqualTo(StockMutation.NONE);
+        assertThat(decision.notification()).isEqualTo(Notification.delay(15, "cable usb"));
     }
 
     @Test
-    void shouldNotNotifyWhenLeadTimeIsZero() {
+    void shouldNotChangeStockWhenLeadTimeIsZero() {
         Product product = createProduct(0);
         product.setLeadTime(0);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(productRepository, never()).save(any());
+        assertThat(decision.stockMutation()).isEqualTo(StockMutation.NONE);
     }
 
     @Test
-    void shouldHandleStockOfOne() {
+    void shouldDecrementStockOfOne() {
         Product product = createProduct(1);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isZero();
-        verify(productRepository).save(product);
+        assertThat(decision.stockMutation()).isEqualTo(StockMutation.DECREMENT);
+        assertThat(decision.notification()).isNull();
     }
 
     private Product createProduct(int availableQuantity) {
@@ -88,4 +80,4 @@ class NormalProductServiceImplTest {
         product.setLeadTime(10);
         return product;
     }
-}
\ No newline at end of file
+}
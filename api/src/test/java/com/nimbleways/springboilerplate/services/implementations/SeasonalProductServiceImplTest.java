@@ -2,29 +2,19 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.entities.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 class SeasonalProductServiceImplTest {
 
-    @Mock
-    private ProductRepository productRepository;
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
 
-    @Mock
-    private NotificationService notificationService;
-
-    @InjectMocks
-    private SeasonalProductServiceImpl service;
+    private final SeasonalProductServiceImpl service = new SeasonalProductServiceImpl();
 
     @Test
     void shouldSupportSeasonalProductType() {
@@ -35,95 +25,68 @@ class SeasonalProductServiceImplTest {
 
     @Test
     void shouldDecrementStockWhenProductIsInSeason() {
-        Product product = createSeasonalProduct(
-            20,
-            LocalDate.now().minusDays(10),
-            LocalDate.now().plusDays(50)
-        );
+        Product product = createSeasonalProduct(20, TODAY.minusDays(10), TODAY.plusDays(50));
+
+        ProductDecision decision = service.decide(product, TODAY);
+
+        assertThat(decision).isEqualTo(ProductDecision.decrement(product));
+    }
+
+    @Test
+    void shouldNotifyOutOfStockAndClearStockWhenSeasonHasNotStartedYet() {
+        Product product = createSeasonalProduct(20, TODAY.plusDays(30), TODAY.plusDays(90));
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isEqualTo(19);
-        verify(productRepository).save(product);
-        verifyNoInteractions(notificationService);
+        assertThat(decision).isEqualTo(ProductDecision.clear(product, Notification.outOfStock("pasteque")));
     }
 
     @Test
-    void shouldNotifyOutOfStockWhenSeasonHasNotStartedYet() {
-        Product product = createSeasonalProduct(
-            20,
-            LocalDate.now().plusDays(30),
-            LocalDate.now().plusDays(90)
-        );
-
-        service.processProduct(product);
-
-        verify(notificationService).sendOutOfStockNotification("pasteque");
-        verify(productRepository).save(product);
-        assertThat(product.getAvailable()).isZero();
+    void shouldNotifyOutOfStockAndClearStockWhenSeasonIsOver() {
+        Product product = createSeasonalProduct(20, TODAY.minusDays(90), TODAY.minusDays(10));
+
+        ProductDecision decision = service.decide(product, TODAY);
+
+        assertThat(decision).isEqualTo(ProductDecision.clear(product, Notification.outOfStock("pasteque")));
     }
 
     @Test
-    void shouldNotifyOutOfStockWhenSeasonIsOver() {
-        Product product = createSeasonalProduct(
-            20,
-            LocalDate.now().minusDays(90),
-            LocalDate.now().minusDays(10)
-        );
-
-        service.processProduct(product);
-
-        verify(notificationService).sendOutOfStockNotification("pasteque");
-        verify(productRepository).save(product);
-        assertThat(product.getAvailable()).isZero();
+    void shouldNotClearStockAlreadyClearedBySweep() {
+        Product product = createSeasonalProduct(0, TODAY.minusDays(90), TODAY.minusDays(10));
+
+        ProductDecision decision = service.decide(product, TODAY);
+
+        assertThat(decision).isEqualTo(ProductDecision.notify(product, Notification.outOfStock("pasteque")));
     }
 
     @Test
     void shouldDecrementStockWhenProductHasStockAndRestockArrivesBeforeSeasonEnd() {
-        Product product = createSeasonalProduct(
-            5,
-            LocalDate.now().minusDays(5),
-            LocalDate.now().plusDays(30)
-        );
+        Product product = createSeasonalProduct(5, TODAY.minusDays(5), TODAY.plusDays(30));
         product.setLeadTime(10);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        assertThat(product.getAvailable()).isEqualTo(4);
-        verify(productRepository).save(product);
-        verifyNoInteractions(notificationService);
+        assertThat(decision).isEqualTo(ProductDecision.decrement(product));
     }
 
     @Test
     void shouldNotifyOutOfStockWhenRestockExceedsSeasonEnd() {
-        Product product = createSeasonalProduct(
-            0,
-            LocalDate.now().minusDays(5),
-            LocalDate.now().plusDays(20)
-        );
+        Product product = createSeasonalProduct(0, TODAY.minusDays(5), TODAY.plusDays(20));
         product.setLeadTime(50);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(notificationService).sendOutOfStockNotification("pasteque");
-        verify(notificationService, never()).sendDelayNotification(anyInt(), any());
-        assertThat(product.getAvailable()).isZero();
+        assertThat(decision).isEqualTo(ProductDecision.notify(product, Notification.outOfStock("pasteque")));
     }
 
     @Test
     void shouldNotifyOutOfStockWhenNoStockDuringActiveSeason() {
-        Product product = createSeasonalProduct(
-            0,
-            LocalDate.now().minusDays(10),
-            LocalDate.now().plusDays(50)
-        );
+        Product product = createSeasonalProduct(0, TODAY.minusDays(10), TODAY.plusDays(50));
         product.setLeadTime(5);
 
-        service.processProduct(product);
+        ProductDecision decision = service.decide(product, TODAY);
 
-        verify(notificationService).sendOutOfStockNotification("pasteque");
-        verify(notificationService, never()).sendDelayNotification(anyInt(), any());
-        assertThat(product.getAvailable()).isZero();
+        assertThat(decision).isEqualTo(ProductDecision.notify(product, Notification.outOfStock("pasteque")));
     }
 
     private Product createSeasonalProduct(int stock, LocalDate startDate, LocalDate endDate) {
@@ -137,4 +100,4 @@ class SeasonalProductServiceImplTest {
         product.setSeasonEndDate(endDate);
         return product;
     }
-}
\ No newline at end of file
+}
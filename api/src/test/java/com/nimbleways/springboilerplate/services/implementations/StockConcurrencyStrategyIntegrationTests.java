@@ -0,0 +1,179 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.config.StockConcurrencyMode;
+import com.nimbleways.springboilerplate.config.StockProperties;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerCheckpointRepository;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contention benchmark: concurrent orders all take one unit of the same few hot products.
+ * Whatever the strategy, the units sold must match the stock removed (no lost update, no overselling).
+ * The throughput of each strategy is logged for comparison.
+ */
+@SpringBootTest(properties = "logging.level.com.nimbleways.springboilerplate.services.implementations.StockConcurrencyStrategyIntegrationTests=INFO")
+@Slf4j
+class StockConcurrencyStrategyIntegrationTests {
+
+    private static final int HOT_PRODUCTS = 3;
+    private static final int INITIAL_STOCK = 300;
+    private static final int CLIENTS = 8;
+    private static final int ORDERS_PER_CLIENT = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockRepository productStockRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path directory;
+
+    private StockLedger stockLedger;
+
+    @ParameterizedTest
+    @EnumSource(StockConcurrencyMode.class)
+    void shouldNeitherLoseUpdatesNorOversellUnderContention(StockConcurrencyMode mode) throws Exception {
+        List<Long> productIds = createHotProducts();
+        StockConcurrencyStrategy strategy = createStrategy(mode);
+        Map<Long, AtomicInteger> unitsSold = new ConcurrentHashMap<>();
+        productIds.forEach(productId -> unitsSold.put(productId, new AtomicInteger()));
+        AtomicInteger failedOrders = new AtomicInteger();
+        AtomicLong elapsedNanos = new AtomicLong();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int client = 0; client < CLIENTS; client++) {
+            clients.submit(() -> {
+                start.await();
+                for (int order = 0; order < ORDERS_PER_CLIENT; order++) {
+                    long startNanos = System.nanoTime();
+                    try {
+                        List<Long> sold = transactionTemplate.execute(status -> placeOrder(strategy, productIds));
+                        sold.forEach(productId -> unitsSold.get(productId).incrementAndGet());
+                    } catch (RuntimeException e) {
+                        failedOrders.incrementAndGet();
+                    }
+                    elapsedNanos.addAndGet(System.nanoTime() - startNanos);
+                }
+                return null;
+            });
+        }
+        long benchmarkStart = System.nanoTime();
+        start.countDown();
+        clients.shutdown();
+        assertThat(clients.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        long benchmarkNanos = System.nanoTime() - benchmarkStart;
+        if (stockLedger != null) {
+            stockLedger.stop();
+        }
+
+        int orders = CLIENTS * ORDERS_PER_CLIENT;
+        log.info("{}: {} orders in {} ms ({} orders/s, mean latency {} us, {} failed)",
+            mode, orders, TimeUnit.NANOSECONDS.toMillis(benchmarkNanos),
+            orders * TimeUnit.SECONDS.toNanos(1) / benchmarkNanos,
+            TimeUnit.NANOSECONDS.toMicros(elapsedNanos.get() / orders), failedOrders.get());
+
+        for (Long productId : productIds) {
+            int available = productRepository.findById(productId).orElseThrow().getAvailable();
+            assertThat(unitsSold.get(productId).get()).isLessThanOrEqualTo(INITIAL_STOCK);
+            assertThat(available).isEqualTo(INITIAL_STOCK - unitsSold.get(productId).get());
+        }
+    }
+
+    private List<Long> placeOrder(StockConcurrencyStrategy strategy, List<Long> productIds) {
+        strategy.lockAll(productIds);
+        List<Product> products = productIds.stream()
+            .map(productId -> productRepository.findById(productId).orElseThrow())
+            .sorted(Comparator.comparing(Product::getId))
+            .collect(Collectors.toList());
+        strategy.prepare(products);
+        List<ProductDecision> decisions = products.stream()
+            .filter(product -> product.getAvailable() > 0)
+            .map(ProductDecision::decrement)
+            .collect(Collectors.toList());
+        List<Product> soldOut = strategy.apply(decisions);
+        return decisions.stream()
+            .map(ProductDecision::product)
+            .filter(product -> !soldOut.contains(product))
+            .map(Product::getId)
+            .collect(Collectors.toList());
+    }
+
+    private StockConcurrencyStrategy createStrategy(StockConcurrencyMode mode) {
+        switch (mode) {
+            case OPTIMISTIC:
+                return new OptimisticStockConcurrencyStrategy(productStockRepository, jdbcTemplate, new StockProperties());
+            case PESSIMISTIC:
+                return new PessimisticStockConcurrencyStrategy(productStockRepository, jdbcTemplate);
+            case LEDGER:
+                StockProperties properties = new StockProperties();
+                properties.getLedger().setJournalPath(directory.resolve("stock-ledger.journal"));
+                stockLedger = new StockLedger(checkpointRepository, jdbcTemplate, transactionTemplate, properties, new SimpleMeterRegistry());
+                stockLedger.start();
+                return new LedgerStockConcurrencyStrategy(stockLedger);
+            default:
+                return new AtomicStockConcurrencyStrategy(productStockRepository, jdbcTemplate);
+        }
+    }
+
+    private List<Long> createHotProducts() {
+        return transactionTemplate.execute(status -> {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+            List<Product> products = new ArrayList<>();
+            for (int index = 0; index < HOT_PRODUCTS; index++) {
+                Product product = new Product();
+                product.setType(ProductType.NORMAL);
+                product.setName("hot product " + index);
+                product.setAvailable(INITIAL_STOCK);
+                product.setLeadTime(5);
+                products.add(product);
+            }
+            return productRepository.saveAll(products).stream().map(Product::getId).collect(Collectors.toList());
+        });
+    }
+}
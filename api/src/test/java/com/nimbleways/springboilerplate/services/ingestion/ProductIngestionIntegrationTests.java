@@ -0,0 +1,160 @@
+package com.nimbleways.springboilerplate.services.ingestion;
+
+import com.nimbleways.springboilerplate.dto.product.IngestionLineError;
+import com.nimbleways.springboilerplate.dto.product.ProductIngestionResponse;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "products.ingestion.batch-size=2",
+    "products.lifecycle.sweep-on-startup=false",
+    "products.cache.poll-interval=1h"
+})
+class ProductIngestionIntegrationTests {
+
+    @Autowired
+    private ProductIngestionService ingestionService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from product_catalog_changes");
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void shouldInsertNewProductsAcrossBatches() {
+        ProductIngestionResponse response = ingestionService.importProducts(ndjson(
+            "{\"name\": \"chaise\", \"type\": \"NORMAL\", \"leadTime\": 5, \"available\": 10}",
+            "{\"name\": \"table\", \"type\": \"NORMAL\", \"leadTime\": 5}",
+            "{\"name\": \"fromage\", \"type\": \"EXPIRABLE\", \"leadTime\": 2, \"available\": 4, \"expiryDate\": \"2030-01-01\"}"
+        ));
+
+        assertThat(response).isEqualTo(new ProductIngestionResponse(3, 0, List.of()));
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of("chaise", 10, "table", 0, "fromage", 4));
+        Product fromage = productRepository.findFirstByName("fromage").orElseThrow();
+        assertThat(fromage.getSellableUntil()).isEqualTo(LocalDate.of(2029, 12, 31));
+    }
+
+    @Test
+    void shouldUpdateReferenceDataOfExistingProductsOnly() {
+        Long productId = createProduct("pasteque", 7);
+
+        ProductIngestionResponse response = ingestionService.importProducts(ndjson(
+            "{\"id\": " + productId + ", \"name\": \"melon\", \"type\": \"SEASONAL\", \"leadTime\": 3, \"available\": 99,"
+                + " \"seasonStartDate\": \"2030-06-01\", \"seasonEndDate\": \"2030-09-01\"}"
+        ));
+
+        assertThat(response.accepted()).isEqualTo(1);
+        Product product = productRepository.findFirstByName("melon").orElseThrow();
+        assertThat(product.getType()).isEqualTo(ProductType.SEASONAL);
+        assertThat(product.getAvailable()).isEqualTo(7);
+        assertThat(product.getSellableFrom()).isEqualTo(LocalDate.of(2030, 6, 2));
+        assertThat(jdbcTemplate.queryForList("select product_id from product_catalog_changes", Long.class))
+            .containsExactly(productId);
+    }
+
+    @Test
+    void shouldReportRejectedLinesAndWriteTheOthers() {
+        ProductIngestionResponse response = ingestionService.importProducts(ndjson(
+            "{\"name\": \"chaise\", \"type\": \"NORMAL\"",
+            "{\"type\": \"NORMAL\", \"leadTime\": 5}",
+            "",
+            "{\"id\": 999999, \"name\": \"table\", \"type\": \"NORMAL\", \"leadTime\": 5}",
+            "{\"name\": \"lampe\", \"type\": \"NORMAL\", \"leadTime\": 5, \"available\": 1}"
+        ));
+
+        assertThat(response.accepted()).isEqualTo(1);
+        assertThat(response.rejected()).isEqualTo(3);
+        assertThat(response.errors()).extracting(IngestionLineError::line).containsExactly(1L, 2L, 4L);
+        assertThat(response.errors().get(1).message()).isEqualTo("name must not be blank");
+        assertThat(response.errors().get(2).message()).isEqualTo("unknown product 999999");
+        assertThat(availableByName()).containsOnlyKeys("lampe");
+    }
+
+    @Test
+    void shouldRejectOnlyTheBatchThatFailed() {
+        String tooLong = "x".repeat(300);
+
+        ProductIngestionResponse response = ingestionService.importProducts(ndjson(
+            "{\"name\": \"chaise\", \"type\": \"NORMAL\", \"leadTime\": 5}",
+            "{\"name\": \"table\", \"type\": \"NORMAL\", \"leadTime\": 5}",
+            "{\"name\": \"lampe\", \"type\": \"NORMAL\", \"leadTime\": 5}",
+            "{\"name\": \"" + tooLong + "\", \"type\": \"NORMAL\", \"leadTime\": 5}"
+        ));
+
+        assertThat(response.accepted()).isEqualTo(2);
+        assertThat(response.errors()).extracting(IngestionLineError::line).containsExactly(3L, 4L);
+        assertThat(availableByName()).containsOnlyKeys("chaise", "table");
+    }
+
+    @Test
+    void shouldAddUnitsOfKnownProducts() {
+        Long chaiseId = createProduct("chaise", 10);
+        Long tableId = createProduct("table", 0);
+
+        ProductIngestionResponse response = ingestionService.restock(ndjson(
+            "{\"id\": " + chaiseId + ", \"units\": 5}",
+            "{\"id\": 999999, \"units\": 5}",
+            "{\"id\": " + tableId + ", \"units\": 3}",
+            "{\"id\": " + chaiseId + ", \"units\": 2}",
+            "{\"id\": " + tableId + ", \"units\": 0}"
+        ));
+
+        assertThat(response.accepted()).isEqualTo(3);
+        assertThat(response.errors()).containsExactly(
+            new IngestionLineError(2, "unknown product 999999"),
+            new IngestionLineError(5, "units must be greater than 0"));
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of("chaise", 17, "table", 3));
+    }
+
+    private Long createProduct(String name, int available) {
+        Product product = new Product();
+        product.setType(ProductType.NORMAL);
+        product.setName(name);
+        product.setAvailable(available);
+        product.setLeadTime(5);
+        return productRepository.save(product).getId();
+    }
+
+    private Map<String, Integer> availableByName() {
+        return productRepository.findAll().stream()
+            .collect(Collectors.toMap(Product::getName, Product::getAvailable));
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,73 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockJournalTest {
+
+    private static final int SIZE = StockJournal.HEADER_SIZE + 4 * StockJournal.RECORD_SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplaySummedChangesAfterReopening() throws IOException {
+        Path path = directory.resolve("stock.journal");
+        long epoch;
+        try (StockJournal journal = StockJournal.open(path, SIZE)) {
+            journal.write(journal.reserve(), 1L, -1);
+            journal.write(journal.reserve(), 1L, -1);
+            journal.write(journal.reserve(), 2L, -3);
+            epoch = journal.epoch();
+        }
+
+        try (StockJournal journal = StockJournal.open(path, SIZE)) {
+            assertThat(journal.epoch()).isEqualTo(epoch);
+            assertThat(journal.position()).isEqualTo(StockJournal.HEADER_SIZE + 3 * StockJournal.RECORD_SIZE);
+            assertThat(journal.replay(StockJournal.HEADER_SIZE)).isEqualTo(Map.of(1L, -2, 2L, -3));
+            assertThat(journal.replay(StockJournal.HEADER_SIZE + StockJournal.RECORD_SIZE)).isEqualTo(Map.of(1L, -1, 2L, -3));
+        }
+    }
+
+    @Test
+    void shouldReplayRecordsWrittenAfterAnIncompleteOne() throws IOException {
+        try (StockJournal journal = StockJournal.open(directory.resolve("stock.journal"), SIZE)) {
+            journal.reserve();
+            journal.write(journal.reserve(), 7L, -1);
+
+            assertThat(journal.replay(StockJournal.HEADER_SIZE)).isEqualTo(Map.of(7L, -1));
+        }
+    }
+
+    @Test
+    void shouldRefuseRecordsWhenFull() throws IOException {
+        try (StockJournal journal = StockJournal.open(directory.resolve("stock.journal"), SIZE)) {
+            for (int record = 0; record < 4; record++) {
+                assertThat(journal.reserve()).isNotNegative();
+            }
+
+            assertThat(journal.reserve()).isEqualTo(-1);
+            assertThat(journal.position()).isEqualTo(SIZE);
+        }
+    }
+
+    @Test
+    void shouldStartNewEpochWhenReset() throws IOException {
+        try (StockJournal journal = StockJournal.open(directory.resolve("stock.journal"), SIZE)) {
+            journal.write(journal.reserve(), 1L, -1);
+            long epoch = journal.epoch();
+
+            journal.reset();
+
+            assertThat(journal.epoch()).isNotEqualTo(epoch);
+            assertThat(journal.position()).isEqualTo(StockJournal.HEADER_SIZE);
+            assertThat(journal.replay(StockJournal.HEADER_SIZE)).isEmpty();
+        }
+    }
+}
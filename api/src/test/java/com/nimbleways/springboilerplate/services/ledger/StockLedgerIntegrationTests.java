@@ -0,0 +1,139 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import com.nimbleways.springboilerplate.config.StockProperties;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StockLedgerIntegrationTests {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockLedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path directory;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = transactionTemplate.execute(status -> {
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+            checkpointRepository.deleteAll();
+            Product product = new Product();
+            product.setType(ProductType.NORMAL);
+            product.setName("flash sale product");
+            product.setAvailable(10);
+            product.setLeadTime(5);
+            return productRepository.save(product).getId();
+        });
+    }
+
+    @Test
+    void shouldWriteCoalescedChangesBack() throws Exception {
+        StockLedger ledger = startLedger();
+        ledger.decrement(productId, 10);
+        ledger.decrement(productId, 10);
+        ledger.decrement(productId, 10);
+        assertThat(availableInDatabase()).isEqualTo(10);
+
+        ledger.flush();
+
+        assertThat(availableInDatabase()).isEqualTo(7);
+        ledger.stop();
+        startLedger().stop();
+        assertThat(availableInDatabase()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldReplayUnflushedChangesAfterCrash() throws Exception {
+        StockLedger crashed = startLedger();
+        crashed.decrement(productId, 10);
+        crashed.flush();
+        crashed.decrement(productId, 10);
+        crashed.clear(productId, 10);
+
+        StockLedger restarted = startLedger();
+
+        assertThat(availableInDatabase()).isZero();
+        restarted.stop();
+    }
+
+    @Test
+    void shouldRestockLoadedProductsInMemoryAndOthersInDatabase() throws Exception {
+        StockLedger ledger = startLedger();
+        ledger.decrement(productId, 10);
+        ledger.restock(productId, 3);
+        assertThat(ledger.available(productId, 0)).isEqualTo(12);
+        ledger.flush();
+        assertThat(availableInDatabase()).isEqualTo(12);
+        ledger.stop();
+
+        StockLedger restarted = startLedger();
+        transactionTemplate.executeWithoutResult(status -> restarted.restock(productId, 2));
+
+        assertThat(availableInDatabase()).isEqualTo(14);
+        restarted.stop();
+    }
+
+    @Test
+    void shouldUndoChangesOfRolledBackOrders() throws Exception {
+        StockLedger crashed = startLedger();
+        transactionTemplate.executeWithoutResult(status -> {
+            crashed.decrement(productId, 10);
+            crashed.decrement(productId, 10);
+            crashed.clear(productId, 10);
+            crashed.restock(productId, 4);
+            status.setRollbackOnly();
+        });
+        assertThat(crashed.available(productId, 0)).isEqualTo(10);
+        transactionTemplate.executeWithoutResult(status -> crashed.decrement(productId, 10));
+
+        StockLedger restarted = startLedger();
+
+        assertThat(availableInDatabase()).isEqualTo(9);
+        restarted.stop();
+    }
+
+    private StockLedger startLedger() {
+        StockProperties properties = new StockProperties();
+        properties.getLedger().setJournalPath(directory.resolve("stock-ledger.journal"));
+        properties.getLedger().setFlushInterval(Duration.ofHours(1));
+        StockLedger ledger = new StockLedger(checkpointRepository, jdbcTemplate, transactionTemplate, properties, new SimpleMeterRegistry());
+        ledger.start();
+        return ledger;
+    }
+
+    private int availableInDatabase() {
+        return productRepository.findById(productId).orElseThrow().getAvailable();
+    }
+}
@@ -0,0 +1,97 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockTableTest {
+
+    @Test
+    void shouldSeedProductOnlyOnce() {
+        StripedStockTable table = new StripedStockTable(4);
+
+        assertThat(table.get(1L)).isEqualTo(StripedStockTable.ABSENT);
+        assertThat(table.seed(1L, 10)).isEqualTo(10);
+        assertThat(table.seed(1L, 99)).isEqualTo(10);
+        assertThat(table.get(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void shouldNotDecrementBelowZero() {
+        StripedStockTable table = new StripedStockTable(4);
+
+        assertThat(table.decrement(1L, 1)).isZero();
+        assertThat(table.decrement(1L, 1)).isEqualTo(StripedStockTable.ABSENT);
+        assertThat(table.get(1L)).isZero();
+    }
+
+    @Test
+    void shouldDrainCoalescedChanges() {
+        StripedStockTable table = new StripedStockTable(4);
+        table.decrement(1L, 10);
+        table.decrement(1L, 10);
+        table.clear(2L, 5);
+        table.seed(3L, 7);
+
+        StockDeltas deltas = table.drainPending();
+
+        assertThat(deltas.size()).isEqualTo(2);
+        for (int index = 0; index < deltas.size(); index++) {
+            assertThat(deltas.delta(index)).isEqualTo(deltas.productId(index) == 1L ? -2 : -5);
+        }
+        assertThat(table.drainPending().isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldRestoreUndrainedChanges() {
+        StripedStockTable table = new StripedStockTable(4);
+        table.decrement(1L, 10);
+        StockDeltas deltas = table.drainPending();
+        table.decrement(1L, 10);
+
+        table.restorePending(deltas);
+
+        StockDeltas retried = table.drainPending();
+        assertThat(retried.size()).isEqualTo(1);
+        assertThat(retried.delta(0)).isEqualTo(-2);
+    }
+
+    @Test
+    void shouldKeepAllProductsWhenGrowing() {
+        StripedStockTable table = new StripedStockTable(2);
+        for (long productId = 1; productId <= 10_000; productId++) {
+            table.seed(productId, (int) productId);
+        }
+
+        for (long productId = 1; productId <= 10_000; productId++) {
+            assertThat(table.get(productId)).isEqualTo((int) productId);
+        }
+    }
+
+    @Test
+    void shouldNotOversellUnderConcurrentDecrements() throws InterruptedException {
+        StripedStockTable table = new StripedStockTable(8);
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int task = 0; task < 8; task++) {
+            executor.submit(() -> {
+                for (int attempt = 0; attempt < 1_000; attempt++) {
+                    if (table.decrement(42L, 5_000) != StripedStockTable.ABSENT) {
+                        sold.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(sold.get()).isEqualTo(5_000);
+        assertThat(table.get(42L)).isZero();
+        assertThat(table.drainPending().delta(0)).isEqualTo(-5_000);
+    }
+}
@@ -0,0 +1,206 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncNotificationDispatcherTest {
+
+    private static final Notification DELAY = Notification.delay(15, "cable usb");
+    private static final Notification OUT_OF_STOCK = Notification.outOfStock("pasteque");
+
+    @Mock
+    private NotificationSender notificationSender;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AsyncNotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+        dispatcher.stop();
+    }
+
+    @Test
+    void shouldDeliverOnTheWorkerThread() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 10);
+        dispatcher.start();
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+
+        InOrder inOrder = inOrder(notificationSender);
+        inOrder.verify(notificationSender, timeout(1000)).send(DELAY);
+        inOrder.verify(notificationSender, timeout(1000)).send(OUT_OF_STOCK);
+    }
+
+    @Test
+    void shouldHoldNotificationsUntilTheTransactionCommits() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+        assertThat(dispatcher.queueDepth()).isZero();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(dispatcher.queueDepth()).isEqualTo(2);
+        assertThat(TransactionSynchronizationManager.hasResource(dispatcher)).isFalse();
+    }
+
+    @Test
+    void shouldDiscardNotificationsOfRolledBackTransactions() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        dispatcher.publish(DELAY);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(dispatcher.queueDepth()).isZero();
+        assertThat(TransactionSynchronizationManager.hasResource(dispatcher)).isFalse();
+    }
+
+    @Test
+    void shouldDropNewestWhenQueueIsFull() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.DROP_NEWEST, 1);
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.start();
+
+        verify(notificationSender, timeout(1000)).send(DELAY);
+        verify(notificationSender, never()).send(OUT_OF_STOCK);
+        assertThat(meterRegistry.counter("notifications.dropped", "policy", "DROP_NEWEST").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLetTheNextOccurrenceOfADroppedNewestNotificationThrough() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.DROP_NEWEST, 1);
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.publish(OUT_OF_STOCK);
+
+        assertThat(meterRegistry.counter("notifications.dropped", "policy", "DROP_NEWEST").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropOldestWhenQueueIsFull() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.DROP_OLDEST, 1);
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.start();
+
+        verify(notificationSender, timeout(1000)).send(OUT_OF_STOCK);
+        verify(notificationSender, never()).send(DELAY);
+    }
+
+    @Test
+    void shouldLetTheNextOccurrenceOfADroppedOldestNotificationThrough() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.DROP_OLDEST, 1);
+
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.start();
+
+        verify(notificationSender, timeout(1000)).send(OUT_OF_STOCK);
+        verify(notificationSender, never()).send(DELAY);
+        assertThat(meterRegistry.counter("notifications.dropped", "policy", "DROP_OLDEST").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLetTheNextOccurrenceOfANotificationDroppedAfterTheOfferTimeoutThrough() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 1);
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.publish(OUT_OF_STOCK);
+
+        assertThat(meterRegistry.counter("notifications.dropped", "policy", "BLOCK").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDeliverOnCallerThreadWhenQueueIsFull() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.CALLER_RUNS, 1);
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+
+        verify(notificationSender).send(OUT_OF_STOCK);
+        assertThat(dispatcher.queueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotQueueCoalescedDuplicates() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 10);
+
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.publish(OUT_OF_STOCK);
+        dispatcher.publish(DELAY);
+        dispatcher.publish(DELAY);
+
+        assertThat(dispatcher.queueDepth()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldKeepDeliveringAfterAFailure() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 10);
+        doThrow(new IllegalStateException("notifier down")).when(notificationSender).send(DELAY);
+        dispatcher.start();
+
+        dispatcher.publish(DELAY);
+        dispatcher.publish(OUT_OF_STOCK);
+
+        verify(notificationSender, timeout(1000)).send(OUT_OF_STOCK);
+        assertThat(meterRegistry.counter("notifications.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLetTheNextOccurrenceOfAFailedNotificationThrough() {
+        dispatcher = createDispatcher(NotificationProperties.OverflowPolicy.BLOCK, 10);
+        doThrow(new IllegalStateException("notifier down")).doNothing().when(notificationSender).send(OUT_OF_STOCK);
+        dispatcher.start();
+
+        dispatcher.publish(OUT_OF_STOCK);
+        verify(notificationSender, timeout(1000)).send(OUT_OF_STOCK);
+        while (meterRegistry.counter("notifications.failed").count() == 0) {
+            Thread.onSpinWait();
+        }
+        dispatcher.publish(OUT_OF_STOCK);
+
+        verify(notificationSender, timeout(1000).times(2)).send(OUT_OF_STOCK);
+        assertThat(meterRegistry.counter("notifications.delivered").count()).isEqualTo(1);
+    }
+
+    private AsyncNotificationDispatcher createDispatcher(NotificationProperties.OverflowPolicy policy, int capacity) {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getAsync().setOverflowPolicy(policy);
+        properties.getAsync().setQueueCapacity(capacity);
+        return new AsyncNotificationDispatcher(notificationSender, new NotificationCoalescer(properties, meterRegistry), properties, meterRegistry);
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
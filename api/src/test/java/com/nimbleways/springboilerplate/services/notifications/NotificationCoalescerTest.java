@@ -0,0 +1,98 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationCoalescerTest {
+
+    private static final Notification OUT_OF_STOCK = Notification.outOfStock("pasteque");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+    private final NotificationProperties properties = new NotificationProperties();
+
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        properties.getCoalescing().setWindow(Duration.ofMinutes(5));
+        coalescer = new NotificationCoalescer(properties, meterRegistry, now::get);
+    }
+
+    @Test
+    void shouldLetOneNotificationThroughPerWindow() {
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isFalse();
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isFalse();
+
+        assertThat(meterRegistry.counter("notifications.coalescing.suppressed").count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldOpenNewWindowOnceExpiredAndReportOccurrences() {
+        coalescer.admit(OUT_OF_STOCK);
+        coalescer.admit(OUT_OF_STOCK);
+        coalescer.admit(OUT_OF_STOCK);
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+        assertThat(meterRegistry.summary("notifications.coalescing.occurrences").totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldKeySeparateWindowsByKindAndProduct() {
+        LocalDate expiryDate = LocalDate.now();
+
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+        assertThat(coalescer.admit(Notification.outOfStock("melon"))).isTrue();
+        assertThat(coalescer.admit(Notification.expiration("pasteque", expiryDate))).isTrue();
+        assertThat(coalescer.admit(Notification.expiration("pasteque", expiryDate))).isFalse();
+    }
+
+    @Test
+    void shouldNotCoalesceOtherKinds() {
+        Notification delay = Notification.delay(15, "cable usb");
+
+        assertThat(coalescer.admit(delay)).isTrue();
+        assertThat(coalescer.admit(delay)).isTrue();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWindow() {
+        properties.getCoalescing().setMaxWindows(2);
+        coalescer.admit(OUT_OF_STOCK);
+        coalescer.admit(Notification.outOfStock("melon"));
+        coalescer.admit(OUT_OF_STOCK);
+        coalescer.admit(Notification.outOfStock("fraise"));
+
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isFalse();
+        assertThat(coalescer.admit(Notification.outOfStock("melon"))).isTrue();
+    }
+
+    @Test
+    void shouldAdmitAgainOnceWithdrawn() {
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+
+        coalescer.withdraw(OUT_OF_STOCK);
+
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isFalse();
+    }
+
+    @Test
+    void shouldLetEverythingThroughWhenDisabled() {
+        properties.getCoalescing().setEnabled(false);
+
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+        assertThat(coalescer.admit(OUT_OF_STOCK)).isTrue();
+    }
+}
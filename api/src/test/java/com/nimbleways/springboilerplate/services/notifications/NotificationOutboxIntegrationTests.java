@@ -0,0 +1,149 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEntry;
+import com.nimbleways.springboilerplate.repositories.NotificationOutboxRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+    "notifications.delivery=OUTBOX",
+    "notifications.coalescing.enabled=false",
+    "notifications.outbox.batch-size=3",
+    "notifications.outbox.poll-interval=1h",
+    "notifications.outbox.purge-batch-size=2",
+    "products.lifecycle.sweep-on-startup=false",
+    "products.cache.poll-interval=1h"
+})
+class NotificationOutboxIntegrationTests {
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
+    @Autowired
+    private NotificationOutboxRelay relay;
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        notificationOutboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void shouldWriteNotificationsWithTheTransactionOnly() {
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationPublisher.publish(Notification.outOfStock("rolled back"));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> notificationPublisher.publish(Notification.outOfStock("committed")));
+
+        assertThat(notificationOutboxRepository.findAll()).extracting(NotificationOutboxEntry::getProductName)
+            .containsExactly("committed");
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void shouldRelayInOrderAcrossBatches() {
+        List<String> names = IntStream.range(0, 7).mapToObj(i -> "product " + i).collect(Collectors.toList());
+        notificationPublisher.publishAll(names.stream().map(Notification::outOfStock).collect(Collectors.toList()));
+
+        int relayed = relay.relay();
+
+        assertThat(relayed).isEqualTo(7);
+        InOrder inOrder = inOrder(notificationService);
+        names.forEach(name -> inOrder.verify(notificationService).sendOutOfStockNotification(name));
+        assertThat(notificationOutboxRepository.findAll()).allSatisfy(entry -> assertThat(entry.getDeliveredAt()).isNotNull());
+        assertThat(relay.relay()).isZero();
+    }
+
+    @Test
+    void shouldRetryFromTheFailedNotification() {
+        notificationPublisher.publishAll(List.of(Notification.outOfStock("a"), Notification.outOfStock("b"),
+            Notification.outOfStock("c")));
+        doThrow(new IllegalStateException("notifier down")).doNothing().when(notificationService).sendOutOfStockNotification("b");
+
+        assertThat(relay.relay()).isEqualTo(1);
+        assertThat(relay.relay()).isEqualTo(2);
+
+        InOrder inOrder = inOrder(notificationService);
+        inOrder.verify(notificationService).sendOutOfStockNotification("a");
+        inOrder.verify(notificationService, times(2)).sendOutOfStockNotification("b");
+        inOrder.verify(notificationService).sendOutOfStockNotification("c");
+        verify(notificationService, times(1)).sendOutOfStockNotification("a");
+    }
+
+    @Test
+    void shouldSendACoalescedNotificationWhoseDeliveryFailedWhenRetried(@Autowired NotificationSender notificationSender) {
+        NotificationProperties coalescing = new NotificationProperties();
+        coalescing.getOutbox().setBatchSize(3);
+        NotificationOutboxRelay coalescingRelay = new NotificationOutboxRelay(notificationOutboxRepository,
+            notificationSender, new NotificationCoalescer(coalescing, new SimpleMeterRegistry()), transactionTemplate,
+            coalescing, new SimpleMeterRegistry());
+        notificationPublisher.publish(Notification.outOfStock("a"));
+        doThrow(new IllegalStateException("notifier down")).doNothing().when(notificationService).sendOutOfStockNotification("a");
+
+        assertThat(coalescingRelay.relay()).isZero();
+        assertThat(coalescingRelay.relay()).isEqualTo(1);
+
+        verify(notificationService, times(2)).sendOutOfStockNotification("a");
+        assertThat(notificationOutboxRepository.findAll()).allSatisfy(entry -> assertThat(entry.getDeliveredAt()).isNotNull());
+    }
+
+    @Test
+    void shouldPurgeRowsDeliveredBeforeTheRetention(@Autowired NotificationSender notificationSender,
+                                                    @Autowired NotificationCoalescer notificationCoalescer,
+                                                    @Autowired NotificationProperties notificationProperties) {
+        Instant now = Instant.parse("2024-06-15T10:00:00Z");
+        notificationPublisher.publishAll(IntStream.range(0, 6).mapToObj(i -> Notification.outOfStock("product " + i))
+            .collect(Collectors.toList()));
+        List<Long> ids = notificationOutboxRepository.findAll().stream().map(NotificationOutboxEntry::getId).sorted()
+            .collect(Collectors.toList());
+        Duration retention = notificationProperties.getOutbox().getRetention();
+        markDelivered(ids.subList(0, 5), now.minus(retention).minusSeconds(1));
+        markDelivered(ids.subList(5, 6), now.minus(retention).plusSeconds(1));
+        NotificationOutboxRelay purger = new NotificationOutboxRelay(notificationOutboxRepository, notificationSender,
+            notificationCoalescer, transactionTemplate, notificationProperties, new SimpleMeterRegistry(),
+            Clock.fixed(now, ZoneId.systemDefault()));
+
+        assertThat(purger.purge()).isEqualTo(5);
+
+        assertThat(notificationOutboxRepository.findAll()).extracting(NotificationOutboxEntry::getId)
+            .containsExactly(ids.get(5));
+    }
+
+    private void markDelivered(List<Long> ids, Instant deliveredAt) {
+        ids.forEach(id -> jdbcTemplate.update("update notification_outbox set delivered_at = ? where id = ?",
+            Timestamp.from(deliveredAt), id));
+    }
+}
@@ -0,0 +1,48 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SynchronousNotificationPublisherTest {
+
+    private static final Notification OUT_OF_STOCK = Notification.outOfStock("pasteque");
+
+    @Mock
+    private NotificationSender notificationSender;
+
+    private SynchronousNotificationPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        publisher = new SynchronousNotificationPublisher(notificationSender,
+            new NotificationCoalescer(properties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void shouldSendCoalescedNotificationsOnce() {
+        publisher.publish(OUT_OF_STOCK);
+        publisher.publish(OUT_OF_STOCK);
+
+        verify(notificationSender, times(1)).send(OUT_OF_STOCK);
+    }
+
+    @Test
+    void shouldLetTheNextOccurrenceOfAFailedNotificationThrough() {
+        doThrow(new IllegalStateException("notifier down")).doNothing().when(notificationSender).send(OUT_OF_STOCK);
+
+        assertThatThrownBy(() -> publisher.publish(OUT_OF_STOCK)).hasMessage("notifier down");
+        publisher.publish(OUT_OF_STOCK);
+
+        verify(notificationSender, times(2)).send(OUT_OF_STOCK);
+    }
+}
@@ -0,0 +1,193 @@
+package com.nimbleways.springboilerplate.services.queue;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.dto.order.OrderQueueEntryResponse;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.OrderQueueEntry;
+import com.nimbleways.springboilerplate.entities.OrderQueueStatus;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderQueueRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances of the application sharing one database, each with its own queue workers
+ */
+class OrderQueueIntegrationTests {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:order-queue;DB_CLOSE_DELAY=-1";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static ConfigurableApplicationContext firstNode;
+    private static ConfigurableApplicationContext secondNode;
+
+    private OrderQueueService orderQueueService;
+    private OrderQueueRepository orderQueueRepository;
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void startNodes() {
+        firstNode = startNode("node-1");
+        secondNode = startNode("node-2");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        secondNode.close();
+        firstNode.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        orderQueueService = firstNode.getBean(OrderQueueService.class);
+        orderQueueRepository = firstNode.getBean(OrderQueueRepository.class);
+        orderRepository = firstNode.getBean(OrderRepository.class);
+        productRepository = firstNode.getBean(ProductRepository.class);
+        transactionTemplate = firstNode.getBean(TransactionTemplate.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            orderQueueRepository.deleteAll();
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void shouldProcessEveryOrderOnceAcrossNodes() {
+        Product product = saveProduct(200);
+        List<Long> orderIds = IntStream.range(0, 100).mapToObj(i -> saveOrder(product)).collect(Collectors.toList());
+
+        List<Long> entryIds = orderQueueService.enqueue(orderIds).stream()
+            .map(OrderQueueEntryResponse::entryId)
+            .collect(Collectors.toList());
+
+        List<OrderQueueEntry> entries = awaitFinished(entryIds);
+        assertThat(entries).allSatisfy(entry -> {
+            assertThat(entry.getStatus()).isEqualTo(OrderQueueStatus.DONE);
+            assertThat(entry.getAttempts()).isEqualTo(1);
+        });
+        assertThat(entries).extracting(OrderQueueEntry::getLeaseOwner).containsOnly("node-1", "node-2");
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getAvailable()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldDeadLetterUnknownOrdersAtOnce() {
+        Long entryId = orderQueueService.enqueue(List.of(-1L)).get(0).entryId();
+
+        OrderQueueEntry entry = awaitFinished(List.of(entryId)).get(0);
+
+        assertThat(entry.getStatus()).isEqualTo(OrderQueueStatus.DEAD);
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        assertThat(entry.getLastError()).contains("Order not found");
+    }
+
+    @Test
+    void shouldClaimAgainEntriesWhoseLeaseExpired() {
+        Product product = saveProduct(10);
+        Long entryId = saveRunningEntry(saveOrder(product), 1);
+
+        OrderQueueEntry entry = awaitFinished(List.of(entryId)).get(0);
+
+        assertThat(entry.getStatus()).isEqualTo(OrderQueueStatus.DONE);
+        assertThat(entry.getAttempts()).isEqualTo(2);
+        assertThat(entry.getLeaseOwner()).isIn("node-1", "node-2");
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getAvailable()).isEqualTo(9);
+    }
+
+    @Test
+    void shouldDeadLetterEntriesWhoseLastLeaseExpired() {
+        Product product = saveProduct(10);
+        Long entryId = saveRunningEntry(saveOrder(product), MAX_ATTEMPTS);
+
+        OrderQueueEntry entry = awaitFinished(List.of(entryId)).get(0);
+
+        assertThat(entry.getStatus()).isEqualTo(OrderQueueStatus.DEAD);
+        assertThat(entry.getLastError()).contains("crashed-node");
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getAvailable()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldDoubleBackoffUpToTheMaximum() {
+        assertThat(orderQueueService.backoff(1)).isEqualTo(Duration.ofMillis(100));
+        assertThat(orderQueueService.backoff(3)).isEqualTo(Duration.ofMillis(400));
+        assertThat(orderQueueService.backoff(40)).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    private static ConfigurableApplicationContext startNode(String instanceId) {
+        return new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=" + DATABASE_URL,
+                "orders.queue.instance-id=" + instanceId,
+                "orders.queue.workers=2",
+                "orders.queue.claim-batch-size=5",
+                "orders.queue.poll-interval=20ms",
+                "orders.queue.max-attempts=" + MAX_ATTEMPTS,
+                "orders.queue.initial-backoff=100ms",
+                "orders.queue.max-backoff=1s",
+                "products.cache.poll-interval=1h",
+                "products.lifecycle.sweep-on-startup=false",
+                "products.lifecycle.backfill-on-startup=false")
+            .run();
+    }
+
+    private List<OrderQueueEntry> awaitFinished(List<Long> entryIds) {
+        Set<OrderQueueStatus> finished = Set.of(OrderQueueStatus.DONE, OrderQueueStatus.DEAD);
+        Instant deadline = Instant.now().plus(TIMEOUT);
+        List<OrderQueueEntry> entries = orderQueueRepository.findAllById(entryIds);
+        while (!entries.stream().allMatch(entry -> finished.contains(entry.getStatus())) && Instant.now().isBefore(deadline)) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            entries = orderQueueRepository.findAllById(entryIds);
+        }
+        return entries;
+    }
+
+    private Long saveRunningEntry(Long orderId, int attempts) {
+        Instant now = Instant.now();
+        OrderQueueEntry entry = OrderQueueEntry.pending(orderId, now);
+        entry.setStatus(OrderQueueStatus.RUNNING);
+        entry.setAttempts(attempts);
+        entry.setLeaseOwner("crashed-node");
+        entry.setLeaseExpiresAt(now.minusSeconds(1));
+        return orderQueueRepository.save(entry).getId();
+    }
+
+    private Product saveProduct(int available) {
+        Product product = new Product();
+        product.setType(ProductType.NORMAL);
+        product.setName("chaise");
+        product.setAvailable(available);
+        product.setLeadTime(5);
+        return productRepository.save(product);
+    }
+
+    private Long saveOrder(Product product) {
+        return transactionTemplate.execute(status -> orderRepository.save(new Order(null, new HashSet<>(List.of(product)))).getId());
+    }
+}
@@ -0,0 +1,282 @@
+package com.nimbleways.springboilerplate.services.reservations;
+
+import com.nimbleways.springboilerplate.config.StockProperties;
+import com.nimbleways.springboilerplate.dto.order.StockReservationStatus;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.exceptions.StockReservationNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.StockReservationRejectedException;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.StockConcurrencyStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "products.lifecycle.sweep-on-startup=false",
+    "products.cache.poll-interval=1h"
+})
+class StockReservationIntegrationTests {
+
+    private static final Instant NOW = Instant.parse("2024-06-15T10:00:00Z");
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private StockConcurrencyStrategy stockConcurrencyStrategy;
+
+    @Autowired
+    private StockProperties stockProperties;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from stock_reservations");
+            orderRepository.deleteAll();
+            productRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void shouldTakeOneUnitOfEveryItemUntilReleased() {
+        Long orderId = createOrder(Map.of("chaise", 10, "table", 3));
+
+        assertThat(reservationService.reserve(orderId).status()).isEqualTo(StockReservationStatus.HELD);
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of("chaise", 9, "table", 2));
+
+        assertThat(reservationService.release(orderId).status()).isEqualTo(StockReservationStatus.RELEASED);
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of("chaise", 10, "table", 3));
+    }
+
+    @Test
+    void shouldKeepUnitsTakenOnceConfirmed() {
+        Long orderId = createOrder(Map.of("chaise", 10));
+        reservationService.reserve(orderId);
+        assertThat(persistedHolds()).isEqualTo(1);
+
+        reservationService.confirm(orderId);
+
+        assertThat(persistedHolds()).isZero();
+        assertThat(availableByName()).containsEntry("chaise", 9);
+        assertThatThrownBy(() -> reservationService.release(orderId)).isInstanceOf(StockReservationNotFoundException.class);
+    }
+
+    @Test
+    void shouldRejectWholeOrderWhenAnItemIsOutOfStock() {
+        Long orderId = createOrder(Map.of("chaise", 10, "table", 0));
+        Long tableId = productRepository.findFirstByName("table").orElseThrow().getId();
+
+        assertThatThrownBy(() -> reservationService.reserve(orderId))
+            .isInstanceOfSatisfying(StockReservationRejectedException.class,
+                e -> assertThat(e.getUnavailableProductIds()).containsExactly(tableId));
+
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of("chaise", 10, "table", 0));
+        assertThatThrownBy(() -> reservationService.confirm(orderId)).isInstanceOf(StockReservationNotFoundException.class);
+    }
+
+    @Test
+    void shouldPutExpiredHoldsBackInBulk() {
+        MutableClock clock = new MutableClock(NOW);
+        StockReservationService service = newService(clock);
+        Long firstOrderId = createOrder(Map.of("chaise", 10));
+        Long secondOrderId = addOrder("chaise");
+        service.reserve(firstOrderId);
+        service.reserve(secondOrderId);
+
+        clock.advance(stockProperties.getReservation().getTtl());
+        int expired = service.reapExpired();
+
+        assertThat(expired).isEqualTo(2);
+        assertThat(availableByName()).containsEntry("chaise", 10);
+        assertThat(persistedHolds()).isZero();
+        assertThatThrownBy(() -> service.confirm(firstOrderId)).isInstanceOf(StockReservationNotFoundException.class);
+    }
+
+    @Test
+    void shouldReloadPersistedHoldsOnStartup() throws InterruptedException {
+        Long orderId = createOrder(Map.of("chaise", 10, "table", 3));
+        StockReservationService beforeRestart = newService(Clock.systemDefaultZone());
+        beforeRestart.reserve(orderId);
+        beforeRestart.stop();
+
+        StockReservationService afterRestart = newService(Clock.systemDefaultZone());
+        afterRestart.start();
+        afterRestart.release(orderId);
+        afterRestart.stop();
+
+        assertThat(availableByName()).containsExactlyInAnyOrderEntriesOf(Map.of("chaise", 10, "table", 3));
+        assertThat(persistedHolds()).isZero();
+    }
+
+    @Test
+    void shouldPutAnExpiredHoldBackOnceWhenEveryInstanceReapsIt() throws InterruptedException {
+        MutableClock clock = new MutableClock(NOW);
+        StockReservationService first = newService(clock);
+        Long orderId = createOrder(Map.of("chaise", 10));
+        first.reserve(orderId);
+        StockReservationService second = newService(clock);
+        second.start();
+
+        clock.advance(stockProperties.getReservation().getTtl());
+
+        assertThat(first.reapExpired() + second.reapExpired()).isEqualTo(1);
+        assertThat(availableByName()).containsEntry("chaise", 10);
+        second.stop();
+    }
+
+    @Test
+    void shouldNotPutBackAHoldConfirmedThroughAnotherInstance() throws InterruptedException {
+        MutableClock clock = new MutableClock(NOW);
+        StockReservationService first = newService(clock);
+        Long orderId = createOrder(Map.of("chaise", 10));
+        first.reserve(orderId);
+        StockReservationService second = newService(clock);
+        second.start();
+
+        assertThat(newService(clock).confirm(orderId).status()).isEqualTo(StockReservationStatus.CONFIRMED);
+        clock.advance(stockProperties.getReservation().getTtl());
+
+        assertThat(first.reapExpired()).isZero();
+        assertThat(second.reapExpired()).isZero();
+        assertThatThrownBy(() -> second.release(orderId)).isInstanceOf(StockReservationNotFoundException.class);
+        assertThat(availableByName()).containsEntry("chaise", 9);
+        second.stop();
+    }
+
+    @Test
+    void shouldTakeTheUnitsOfAnOrderOnceWhenEveryInstanceReservesIt() {
+        MutableClock clock = new MutableClock(NOW);
+        StockReservationService first = newService(clock);
+        StockReservationService second = newService(clock);
+        Long orderId = createOrder(Map.of("chaise", 10));
+
+        assertThat(first.reserve(orderId).status()).isEqualTo(StockReservationStatus.HELD);
+        assertThat(second.reserve(orderId).status()).isEqualTo(StockReservationStatus.HELD);
+
+        assertThat(availableByName()).containsEntry("chaise", 9);
+        assertThat(persistedHolds()).isEqualTo(1);
+        assertThat(second.release(orderId).status()).isEqualTo(StockReservationStatus.RELEASED);
+        clock.advance(stockProperties.getReservation().getTtl());
+        assertThat(first.reapExpired()).isZero();
+        assertThat(availableByName()).containsEntry("chaise", 10);
+    }
+
+    @Test
+    void shouldTakeTheUnitsAgainWhenReservingAnOrderConfirmedThroughAnotherInstance() {
+        MutableClock clock = new MutableClock(NOW);
+        StockReservationService first = newService(clock);
+        Long orderId = createOrder(Map.of("chaise", 10));
+        first.reserve(orderId);
+
+        newService(clock).confirm(orderId);
+        assertThat(first.reserve(orderId).status()).isEqualTo(StockReservationStatus.HELD);
+
+        assertThat(availableByName()).containsEntry("chaise", 8);
+        assertThat(persistedHolds()).isEqualTo(1);
+        clock.advance(stockProperties.getReservation().getTtl());
+        assertThat(first.reapExpired()).isEqualTo(1);
+        assertThat(availableByName()).containsEntry("chaise", 9);
+    }
+
+    private StockReservationService newService(Clock clock) {
+        return new StockReservationService(orderProcessingService, stockConcurrencyStrategy, jdbcTemplate,
+            transactionTemplate, stockProperties, new SimpleMeterRegistry(), clock);
+    }
+
+    private int persistedHolds() {
+        return jdbcTemplate.queryForObject("select count(*) from stock_reservations", Integer.class);
+    }
+
+    private Map<String, Integer> availableByName() {
+        return productRepository.findAll().stream()
+            .collect(Collectors.toMap(Product::getName, Product::getAvailable));
+    }
+
+    private Long createOrder(Map<String, Integer> availableByName) {
+        return transactionTemplate.execute(status -> {
+            List<Product> products = availableByName.entrySet().stream()
+                .map(entry -> createProduct(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+            return orderRepository.save(new Order(null, new HashSet<>(productRepository.saveAll(products)))).getId();
+        });
+    }
+
+    private Long addOrder(String productName) {
+        return transactionTemplate.execute(status -> {
+            Product product = productRepository.findFirstByName(productName).orElseThrow();
+            return orderRepository.save(new Order(null, new HashSet<>(List.of(product)))).getId();
+        });
+    }
+
+    private static Product createProduct(String name, int available) {
+        Product product = new Product();
+        product.setType(ProductType.NORMAL);
+        product.setName(name);
+        product.setAvailable(available);
+        product.setLeadTime(5);
+        return product;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
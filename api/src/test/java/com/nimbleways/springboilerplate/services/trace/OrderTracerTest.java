@@ -0,0 +1,146 @@
+package com.nimbleways.springboilerplate.services.trace;
+
+import com.nimbleways.springboilerplate.config.OrderTraceProperties;
+import com.nimbleways.springboilerplate.dto.order.OrderProcessingStatus;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductType;
+import com.nimbleways.springboilerplate.services.ProductDecision;
+import com.nimbleways.springboilerplate.services.notifications.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderTracerTest {
+
+    @Mock
+    private Logger traceLog;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderTraceProperties properties = new OrderTraceProperties();
+    private double random = 0.5;
+
+    @BeforeEach
+    void setUp() {
+        properties.setSampleRate(0.1);
+        properties.setSlowThreshold(Duration.ofMillis(250));
+        lenient().when(traceLog.isInfoEnabled()).thenReturn(true);
+    }
+
+    @Test
+    void shouldLogSlowOrdersWithTheirStepsAndItems() {
+        OrderTracer tracer = newTracer();
+        OrderTrace trace = tracer.start(7L);
+        trace.items(2);
+        advance(100);
+        trace.endStep(OrderTrace.Step.LOAD);
+        trace.decided(0, ProductDecision.decrement(product(10L, ProductType.NORMAL)), TimeUnit.MICROSECONDS.toNanos(5));
+        Product seasonal = product(20L, ProductType.SEASONAL);
+        trace.decided(1, ProductDecision.clear(seasonal, Notification.outOfStock("pasteque")), TimeUnit.MICROSECONDS.toNanos(3));
+        advance(200);
+        trace.endStep(OrderTrace.Step.DECIDE);
+
+        tracer.finish(trace, OrderProcessingStatus.PROCESSED);
+
+        assertThat(logged()).isEqualTo("order=7 outcome=PROCESSED reason=SLOW total_us=300000 load_us=100000 prepare_us=0"
+            + " decide_us=200000 apply_us=0 publish_us=0 items=2"
+            + " [10:NORMAL:DECREMENT:5us, 20:SEASONAL:CLEAR:OUT_OF_STOCK:3us]");
+        assertThat(meterRegistry.get("orders.trace.logged").tag("reason", "SLOW").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropFastOrdersOutsideOfTheSample() {
+        OrderTracer tracer = newTracer();
+        OrderTrace trace = tracer.start(7L);
+        advance(10);
+
+        tracer.finish(trace, OrderProcessingStatus.PROCESSED);
+
+        verify(traceLog, never()).info(anyString());
+    }
+
+    @Test
+    void shouldLogSampledOrders() {
+        random = 0.05;
+        OrderTracer tracer = newTracer();
+        OrderTrace trace = tracer.start(7L);
+        trace.items(1);
+        Product product = product(10L, ProductType.NORMAL);
+        trace.decided(0, ProductDecision.decrement(product), 0);
+        trace.soldOut(0, ProductDecision.notify(product, Notification.delay(5, "usb")));
+
+        tracer.finish(trace, OrderProcessingStatus.PROCESSED);
+
+        assertThat(logged()).contains("reason=SAMPLED").endsWith("[10:NORMAL:DECREMENT:SOLD_OUT:DELAY:0us]");
+    }
+
+    @Test
+    void shouldOnlyCountItemsBeyondTheBuffer() {
+        properties.setMaxItems(1);
+        OrderTracer tracer = newTracer();
+        OrderTrace trace = tracer.start(7L);
+        trace.items(3);
+        for (int index = 0; index < 3; index++) {
+            trace.decided(index, ProductDecision.decrement(product(index + 1L, ProductType.NORMAL)), 0);
+        }
+        advance(300);
+
+        tracer.finish(trace, OrderProcessingStatus.PROCESSED);
+
+        assertThat(logged()).endsWith("items=3 [1:NORMAL:DECREMENT:0us, +2]");
+    }
+
+    @Test
+    void shouldReuseAndResetTheTraceOfTheThread() {
+        OrderTracer tracer = newTracer();
+        OrderTrace first = tracer.start(1L);
+        first.items(1);
+        advance(300);
+        first.endStep(OrderTrace.Step.APPLY);
+        tracer.finish(first, OrderProcessingStatus.FAILED);
+
+        OrderTrace second = tracer.start(2L);
+        advance(300);
+        tracer.finish(second, OrderProcessingStatus.NOT_FOUND);
+
+        assertThat(second).isSameAs(first);
+        ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+        verify(traceLog, times(2)).info(lines.capture());
+        assertThat(lines.getAllValues().get(1)).startsWith("order=2 outcome=NOT_FOUND").contains("apply_us=0 ")
+            .endsWith("items=0 []");
+    }
+
+    private OrderTracer newTracer() {
+        return new OrderTracer(properties, meterRegistry, traceLog, nanoTime::get, () -> random);
+    }
+
+    private void advance(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private String logged() {
+        ArgumentCaptor<String> line = ArgumentCaptor.forClass(String.class);
+        verify(traceLog).info(line.capture());
+        return line.getValue();
+    }
+
+    private static Product product(Long id, ProductType type) {
+        Product product = new Product();
+        product.setId(id);
+        product.setType(type);
+        return product;
+    }
+}
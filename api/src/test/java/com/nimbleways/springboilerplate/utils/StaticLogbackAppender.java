@@ -0,0 +1,28 @@
+package com.nimbleways.springboilerplate.utils;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the events logged during tests in memory, so that tests can assert on them
+ */
+public class StaticLogbackAppender extends AppenderBase<ILoggingEvent> {
+
+    private static final List<ILoggingEvent> EVENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        EVENTS.add(event);
+    }
+
+    public static List<ILoggingEvent> getEvents() {
+        return List.copyOf(EVENTS);
+    }
+
+    public static void clearEvents() {
+        EVENTS.clear();
+    }
+}